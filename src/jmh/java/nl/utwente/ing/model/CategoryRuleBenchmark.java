@@ -0,0 +1,68 @@
+package nl.utwente.ing.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the category rule model: construction, validation, the JSON of toString and toStringData and
+ * equality.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryRuleBenchmark {
+	private CategoryRule categoryRule;
+	private CategoryRule same;
+	private CategoryRule other;
+
+	@Setup
+	public void setup() {
+		categoryRule = construct();
+		same = construct();
+		other = construct();
+		other.setCategory_id(4);
+	}
+
+	@Benchmark
+	public CategoryRule construct() {
+		return new CategoryRule(1, "Groceries", "NL12ABNA0457688830", "withdrawal", 3, true);
+	}
+
+	@Benchmark
+	public boolean validCategoryRule() {
+		return categoryRule.validCategoryRule();
+	}
+
+	@Benchmark
+	public String toJson() {
+		return categoryRule.toString();
+	}
+
+	@Benchmark
+	public String toStringData() {
+		return categoryRule.toStringData();
+	}
+
+	@Benchmark
+	public boolean equalsSame() {
+		return categoryRule.equals(same);
+	}
+
+	@Benchmark
+	public boolean equalsOther() {
+		return categoryRule.equals(other);
+	}
+}
@@ -0,0 +1,76 @@
+package nl.utwente.ing.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks categorizing a transaction with the index of {@link CategoryRuleMatcher} against the linear scan
+ * over all rules in order of id that it replaced, for sessions with few and with many rules.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryRuleMatcherBenchmark {
+	private static final String[] WORDS = {"Groceries", "Rent", "Salary", "Insurance", "Coffee", "Train", "Books",
+			"Gym", "Phone", "Dinner", "Taxes", "Gift"};
+
+	@Param({"50", "5000"})
+	private int rules;
+
+	private final CategoryRuleMatcher matcher = new CategoryRuleMatcher();
+	private final List<CategoryRule> byId = new ArrayList<>();
+	private Transaction[] transactions;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(20180408);
+		for (int id = 1; id <= rules; id++) {
+			CategoryRule rule = new CategoryRule(id, WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(rules),
+					random.nextInt(4) == 0 ? "" : "NL" + random.nextInt(rules), random.nextBoolean() ? "deposit"
+					: "withdrawal", 1, false);
+			matcher.add(rule);
+			byId.add(rule);
+		}
+		transactions = new Transaction[1024];
+		for (int i = 0; i < transactions.length; i++) {
+			transactions[i] = new Transaction(i, "2018-04-08T21:15Z", 10, "NL" + random.nextInt(rules),
+					random.nextBoolean() ? "deposit" : "withdrawal", null);
+			transactions[i].setDescription("Payment " + WORDS[random.nextInt(WORDS.length)] + " "
+					+ random.nextInt(rules) + " reference " + random.nextInt());
+		}
+	}
+
+	@Benchmark
+	public CategoryRule match() {
+		return matcher.match(transactions[next++ & 1023], rule -> true);
+	}
+
+	@Benchmark
+	public CategoryRule linearScan() {
+		Transaction transaction = transactions[next++ & 1023];
+		for (CategoryRule rule : byId) {
+			if (CategoryRuleMatcher.matches(rule, transaction)) {
+				return rule;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,59 @@
+package nl.utwente.ing.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the message model: construction, the date and equality.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+	private static final long DATE = 1523222100L;
+
+	private Message message;
+	private Message same;
+	private Message other;
+
+	@Setup
+	public void setup() {
+		message = construct();
+		same = construct();
+		other = construct();
+		other.setRead(true);
+	}
+
+	@Benchmark
+	public Message construct() {
+		return new Message(1, "Balance dropped below zero!", DATE, false, "warning");
+	}
+
+	@Benchmark
+	public long returnUnixTimestamp() {
+		return message.returnUnixTimestamp();
+	}
+
+	@Benchmark
+	public boolean equalsDataSame() {
+		return message.equalsData(same);
+	}
+
+	@Benchmark
+	public boolean equalsDataOther() {
+		return message.equalsData(other);
+	}
+}
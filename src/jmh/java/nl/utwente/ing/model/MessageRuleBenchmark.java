@@ -0,0 +1,62 @@
+package nl.utwente.ing.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the message rule model: construction, validation, the JSON of toStringData and equality.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageRuleBenchmark {
+	private MessageRule messageRule;
+	private MessageRule same;
+	private MessageRule other;
+
+	@Setup
+	public void setup() {
+		messageRule = construct();
+		same = construct();
+		other = construct();
+		other.setValue(300.0);
+	}
+
+	@Benchmark
+	public MessageRule construct() {
+		return new MessageRule(1, "warning", 200.0, 3);
+	}
+
+	@Benchmark
+	public boolean validMessageRule() {
+		return messageRule.validMessageRule();
+	}
+
+	@Benchmark
+	public String toStringData() {
+		return messageRule.toStringData();
+	}
+
+	@Benchmark
+	public boolean equalsDataSame() {
+		return messageRule.equalsData(same);
+	}
+
+	@Benchmark
+	public boolean equalsDataOther() {
+		return messageRule.equalsData(other);
+	}
+}
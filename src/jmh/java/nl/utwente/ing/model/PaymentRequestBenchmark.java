@@ -0,0 +1,74 @@
+package nl.utwente.ing.model;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the payment request model: construction, validation, the JSON of toStringData, the due date and
+ * equality. The due date of the state is formatted in the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentRequestBenchmark {
+	private static final long DUE_DATE = 1530974460L;
+
+	private PaymentRequest paymentRequest;
+	private PaymentRequest same;
+	private PaymentRequest other;
+
+	@Setup
+	public void setup() {
+		paymentRequest = construct();
+		same = construct();
+		other = construct();
+		other.setAmount(10.0);
+		for (PaymentRequest p : new PaymentRequest[] {paymentRequest, same, other}) {
+			p.getDue_date();
+		}
+	}
+
+	@Benchmark
+	public PaymentRequest construct() {
+		return new PaymentRequest(1, "Payback for lunch", DUE_DATE, 213.04, 2, false, new ArrayList<>());
+	}
+
+	@Benchmark
+	public boolean validPaymentRequest() {
+		return paymentRequest.validPaymentRequest();
+	}
+
+	@Benchmark
+	public String toStringData() {
+		return paymentRequest.toStringData();
+	}
+
+	@Benchmark
+	public long returnUnixTimestamp() {
+		return paymentRequest.returnUnixTimestamp();
+	}
+
+	@Benchmark
+	public boolean equalsDataSame() {
+		return paymentRequest.equalsData(same);
+	}
+
+	@Benchmark
+	public boolean equalsDataOther() {
+		return paymentRequest.equalsData(other);
+	}
+}
@@ -0,0 +1,64 @@
+package nl.utwente.ing.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the saving goal model: construction, validation, the JSON of toStringData and equality.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SavingGoalBenchmark {
+	private SavingGoal savingGoal;
+	private SavingGoal same;
+	private SavingGoal other;
+
+	@Setup
+	public void setup() {
+		savingGoal = construct();
+		same = construct();
+		other = construct();
+		other.setBalance(200.0);
+	}
+
+	@Benchmark
+	public SavingGoal construct() {
+		SavingGoal savingGoal = new SavingGoal(1, "Holiday", 50.0, 100.0, 150.0);
+		savingGoal.setGoal(1000.0);
+		return savingGoal;
+	}
+
+	@Benchmark
+	public boolean validSavingGoal() {
+		return savingGoal.validSavingGoal();
+	}
+
+	@Benchmark
+	public String toStringData() {
+		return savingGoal.toStringData();
+	}
+
+	@Benchmark
+	public boolean equalsDataSame() {
+		return savingGoal.equalsData(same);
+	}
+
+	@Benchmark
+	public boolean equalsDataOther() {
+		return savingGoal.equalsData(other);
+	}
+}
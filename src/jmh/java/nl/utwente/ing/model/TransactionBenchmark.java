@@ -0,0 +1,82 @@
+package nl.utwente.ing.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the transaction model: construction, validation, the JSON of toString and equality.
+ * The transactions of the state have their dates parsed in the setup, constructAndValidate includes the parse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+	private static final String DATE = "2018-04-08T21:15:55.450Z";
+	private static final String IBAN = "NL12ABNA0457688830";
+
+	private final Category category = new Category(3, "Groceries");
+	private Transaction transaction;
+	private Transaction same;
+	private Transaction other;
+
+	@Setup
+	public void setup() {
+		transaction = construct();
+		same = construct();
+		other = construct();
+		other.setDescription("Rent");
+		for (Transaction t : new Transaction[] {transaction, same, other}) {
+			t.validTransaction();
+		}
+	}
+
+	@Benchmark
+	public Transaction construct() {
+		Transaction transaction = new Transaction(1, DATE, 12.5, IBAN, "withdrawal", category);
+		transaction.setDescription("Groceries at the market");
+		return transaction;
+	}
+
+	@Benchmark
+	public boolean constructAndValidate() {
+		return construct().validTransaction();
+	}
+
+	@Benchmark
+	public boolean validTransaction() {
+		return transaction.validTransaction();
+	}
+
+	@Benchmark
+	public String toJson() {
+		return transaction.toString();
+	}
+
+	@Benchmark
+	public long returnUnixTimestamp() {
+		return transaction.returnUnixTimestamp();
+	}
+
+	@Benchmark
+	public boolean equalsSame() {
+		return transaction.equals(same);
+	}
+
+	@Benchmark
+	public boolean equalsOther() {
+		return transaction.equals(other);
+	}
+}
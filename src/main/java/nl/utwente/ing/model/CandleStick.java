@@ -1,9 +1,5 @@
 package nl.utwente.ing.model;
 
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-
 public class CandleStick {
 	private double open;
 	private double close;
@@ -68,9 +64,7 @@ public class CandleStick {
 	@Override
 	public String toString() {
 		return "open= " + open + " close= " + close + " high= " + high + " low= " + low + " volume= " + volume + " time= " +
-	DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmX")
-    .withZone(ZoneOffset.UTC)
-    .format(Instant.ofEpochSecond(timestamp));
+	LazyDate.format(timestamp);
 	}
 
 	public long getTimestamp() {
@@ -0,0 +1,267 @@
+package nl.utwente.ing.model;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps the candlesticks of a balance up to date for every {@link TimeInterval} while balance changes are
+ * added and removed, in any order of time.
+ * Every interval keeps one bucket per non-empty candlestick. A bucket holds its changes in a treap ordered by
+ * time, where every node keeps the sum of its subtree and the highest and lowest running sum within it, so
+ * the change, high and low of the bucket relative to its open are read from the root. Adding or removing a
+ * change anywhere in a bucket updates one path of its treap in O(log n), and a query for the last N
+ * candlesticks looks up N buckets, independent of the number of changes. Amounts are kept in cents so sums
+ * are exact.
+ */
+public class CandleStickAggregator {
+	private final Map<Long, Change> changesById = new HashMap<>();
+	private final Map<TimeInterval, NavigableMap<Long, Bucket>> buckets = new EnumMap<>(TimeInterval.class);
+	private long total;
+
+	/**
+	 * A change of the balance, ordered by time and then by id.
+	 */
+	private static class Change implements Comparable<Change> {
+		private final long id;
+		private final long time;
+		private final long cents;
+
+		Change(long id, long time, long cents) {
+			this.id = id;
+			this.time = time;
+			this.cents = cents;
+		}
+
+		@Override
+		public int compareTo(Change other) {
+			int result = Long.compare(time, other.time);
+			return result != 0 ? result : Long.compare(id, other.id);
+		}
+	}
+
+	/**
+	 * The changes within one interval.
+	 */
+	private static class Bucket {
+		private int count;
+		private long volume;
+		private Node root;
+	}
+
+	/**
+	 * A node of the treap of a bucket with the aggregate of its subtree.
+	 */
+	private static class Node {
+		private final Change change;
+		// The treap is a heap on the priority, which is a hash of the id so it does not depend on the order of adding
+		private final long priority;
+		private Node left;
+		private Node right;
+		private long sum;
+		// Highest and lowest running sum within the subtree, including the empty start
+		private long high;
+		private long low;
+
+		Node(Change change) {
+			this.change = change;
+			this.priority = mix(change.id);
+			update();
+		}
+
+		void update() {
+			long leftSum = left == null ? 0 : left.sum;
+			long leftHigh = left == null ? 0 : left.high;
+			long leftLow = left == null ? 0 : left.low;
+			long through = leftSum + change.cents;
+			sum = through + (right == null ? 0 : right.sum);
+			high = Math.max(leftHigh, through + (right == null ? 0 : right.high));
+			low = Math.min(leftLow, through + (right == null ? 0 : right.low));
+		}
+	}
+
+	public CandleStickAggregator() {
+		for (TimeInterval interval : TimeInterval.values()) {
+			buckets.put(interval, new TreeMap<>());
+		}
+	}
+
+	/**
+	 * Adds a change of the balance.
+	 * @param id a unique id, changes at the same time are applied in order of id
+	 * @param epochSecond the time of the change
+	 * @param amount the change, negative for withdrawals
+	 * @throws IllegalArgumentException if a change with the same id was already added
+	 */
+	public void add(long id, long epochSecond, double amount) {
+		Change change = new Change(id, epochSecond, Math.round(amount * 100));
+		if (changesById.putIfAbsent(id, change) != null) {
+			throw new IllegalArgumentException("Duplicate change id " + id);
+		}
+		total += change.cents;
+		for (Map.Entry<TimeInterval, NavigableMap<Long, Bucket>> entry : buckets.entrySet()) {
+			Bucket bucket = entry.getValue().computeIfAbsent(entry.getKey().truncate(epochSecond), start -> new Bucket());
+			bucket.count++;
+			bucket.volume += Math.abs(change.cents);
+			bucket.root = insert(bucket.root, new Node(change));
+		}
+	}
+
+	/**
+	 * Removes a change of the balance.
+	 * @param id the id the change was added with
+	 * @return whether a change with the id existed
+	 */
+	public boolean remove(long id) {
+		Change change = changesById.remove(id);
+		if (change == null) {
+			return false;
+		}
+		total -= change.cents;
+		for (Map.Entry<TimeInterval, NavigableMap<Long, Bucket>> entry : buckets.entrySet()) {
+			long start = entry.getKey().truncate(change.time);
+			Bucket bucket = entry.getValue().get(start);
+			if (--bucket.count == 0) {
+				entry.getValue().remove(start);
+			} else {
+				bucket.volume -= Math.abs(change.cents);
+				bucket.root = remove(bucket.root, change);
+			}
+		}
+		return true;
+	}
+
+	public int size() {
+		return changesById.size();
+	}
+
+	/**
+	 * @return the balance after all changes
+	 */
+	public double getBalance() {
+		return total / 100.0;
+	}
+
+	/**
+	 * Returns the candlesticks of the last intervals, the last candlestick is the interval that contains now.
+	 * Changes after that interval are not part of any candlestick.
+	 * @param interval the length of one candlestick
+	 * @param now the current time in epoch seconds
+	 * @param intervals the number of candlesticks
+	 * @return the candlesticks, oldest first
+	 */
+	public CandleStick[] getCandleSticks(TimeInterval interval, long now, int intervals) {
+		NavigableMap<Long, Bucket> intervalBuckets = buckets.get(interval);
+		long[] starts = new long[intervals + 1];
+		starts[intervals - 1] = interval.truncate(now);
+		starts[intervals] = interval.plus(starts[intervals - 1], 1);
+		for (int i = intervals - 2; i >= 0; i--) {
+			starts[i] = interval.plus(starts[i + 1], -1);
+		}
+
+		// The close of the last candlestick is the balance without the changes after it
+		long close = total;
+		for (Bucket bucket : intervalBuckets.tailMap(starts[intervals], true).values()) {
+			close -= bucket.root.sum;
+		}
+
+		CandleStick[] candleSticks = new CandleStick[intervals];
+		for (int i = intervals - 1; i >= 0; i--) {
+			Bucket bucket = intervalBuckets.get(starts[i]);
+			if (bucket == null) {
+				candleSticks[i] = new CandleStick(close / 100.0, close / 100.0, close / 100.0, close / 100.0, 0, starts[i]);
+				continue;
+			}
+			long open = close - bucket.root.sum;
+			candleSticks[i] = new CandleStick(open / 100.0, close / 100.0, (open + bucket.root.high) / 100.0,
+					(open + bucket.root.low) / 100.0, bucket.volume / 100.0, starts[i]);
+			close = open;
+		}
+		return candleSticks;
+	}
+
+	// ---- Treap ----
+
+	private static Node insert(Node node, Node inserted) {
+		if (node == null) {
+			return inserted;
+		}
+		if (inserted.priority > node.priority) {
+			split(node, inserted);
+			inserted.update();
+			return inserted;
+		}
+		if (inserted.change.compareTo(node.change) < 0) {
+			node.left = insert(node.left, inserted);
+		} else {
+			node.right = insert(node.right, inserted);
+		}
+		node.update();
+		return node;
+	}
+
+	/**
+	 * Splits a subtree into the changes before and after the change of a node, which become its children.
+	 */
+	private static void split(Node node, Node at) {
+		if (node == null) {
+			at.left = null;
+			at.right = null;
+			return;
+		}
+		if (node.change.compareTo(at.change) < 0) {
+			split(node.right, at);
+			node.right = at.left;
+			node.update();
+			at.left = node;
+		} else {
+			split(node.left, at);
+			node.left = at.right;
+			node.update();
+			at.right = node;
+		}
+	}
+
+	private static Node remove(Node node, Change change) {
+		int compare = change.compareTo(node.change);
+		if (compare == 0) {
+			return merge(node.left, node.right);
+		}
+		if (compare < 0) {
+			node.left = remove(node.left, change);
+		} else {
+			node.right = remove(node.right, change);
+		}
+		node.update();
+		return node;
+	}
+
+	/**
+	 * Merges two subtrees where every change of the first is before every change of the second.
+	 */
+	private static Node merge(Node first, Node second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		if (first.priority > second.priority) {
+			first.right = merge(first.right, second);
+			first.update();
+			return first;
+		}
+		second.left = merge(first, second.left);
+		second.update();
+		return second;
+	}
+
+	private static long mix(long id) {
+		long z = id + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -1,8 +1,11 @@
 package nl.utwente.ing.model;
 
-import org.json.JSONObject;
-
 public class CategoryRule {
+	private static final JsonWriter.Fields FIELDS = JsonWriter.fields("description", "iBAN", "type", "category_id",
+			"applyOnHistory");
+	private static final JsonWriter.Fields DATA_FIELDS = JsonWriter.fields("description", "iBAN", "type",
+			"category_id");
+
 	private int id;
 	private String description;
 	private String iBAN;
@@ -85,13 +88,12 @@ public class CategoryRule {
 	
 	@Override
 	public String toString() {
-		JSONObject json = new JSONObject();
-		json.put("description", description)
-			.put("iBAN", iBAN)
-			.put("type", type.toString())
-			.put("category_id", category_id)
-			.put("applyOnHistory", applyOnHistory);
-		return json.toString();
+		return JsonWriter.start(FIELDS)
+			.value(description)
+			.value(iBAN)
+			.value(type.toString())
+			.value(category_id)
+			.value(applyOnHistory).end();
 	}
 	
 	public boolean equals(CategoryRule cr) {
@@ -106,11 +108,10 @@ public class CategoryRule {
 	}
 	
 	public String toStringData() {
-		JSONObject json = new JSONObject();
-		json.put("description", description)
-			.put("iBAN", iBAN)
-			.put("type", type.toString())
-			.put("category_id", category_id);
-		return json.toString();
+		return JsonWriter.start(DATA_FIELDS)
+			.value(description)
+			.value(iBAN)
+			.value(type.toString())
+			.value(category_id).end();
 	}
 }
@@ -0,0 +1,199 @@
+package nl.utwente.ing.model;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Finds the first category rule, in order of id, that matches a transaction.
+ * A rule matches when its type equals the type of the transaction, its IBAN is empty or equals the external
+ * IBAN and its description is contained in the description of the transaction.
+ * Rules are grouped by type, IBAN and description. The descriptions that occur in a transaction are found in
+ * one pass over it with an Aho-Corasick automaton, so a match only visits the groups of those descriptions
+ * instead of every rule. Adding and removing rules updates the groups directly; the automaton is rebuilt on
+ * the next match only when a description was added or removed that no other rule has.
+ */
+public class CategoryRuleMatcher {
+	private static final Comparator<CategoryRule> BY_ID = Comparator.comparingInt(CategoryRule::getId);
+
+	private final Map<Integer, CategoryRule> rules = new HashMap<>();
+	// Type -> IBAN -> description -> rules
+	private final Map<TransactionType, Map<String, Map<String, NavigableSet<CategoryRule>>>> groups =
+			new EnumMap<>(TransactionType.class);
+	// The number of rules with each description
+	private final Map<String, Integer> descriptions = new HashMap<>();
+	private Node automaton;
+
+	/**
+	 * A state of the automaton, the descriptions that end here and at the states its suffix links lead to.
+	 */
+	private static class Node {
+		private final Map<Character, Node> children = new HashMap<>();
+		private Node fail;
+		private Node output;
+		private String description;
+	}
+
+	/**
+	 * Adds a rule, replacing the rule with the same id.
+	 */
+	public void add(CategoryRule rule) {
+		remove(rule.getId());
+		rules.put(rule.getId(), rule);
+		groups.computeIfAbsent(rule.getType(), type -> new HashMap<>())
+				.computeIfAbsent(rule.getiBAN(), iban -> new HashMap<>())
+				.computeIfAbsent(rule.getDescription(), description -> new TreeSet<>(BY_ID))
+				.add(rule);
+		if (descriptions.merge(rule.getDescription(), 1, Integer::sum) == 1) {
+			automaton = null;
+		}
+	}
+
+	/**
+	 * Removes a rule.
+	 * @param id the id of the rule
+	 * @return whether a rule with the id existed
+	 */
+	public boolean remove(int id) {
+		CategoryRule rule = rules.remove(id);
+		if (rule == null) {
+			return false;
+		}
+		Map<String, Map<String, NavigableSet<CategoryRule>>> ibans = groups.get(rule.getType());
+		Map<String, NavigableSet<CategoryRule>> byDescription = ibans.get(rule.getiBAN());
+		NavigableSet<CategoryRule> group = byDescription.get(rule.getDescription());
+		group.remove(rule);
+		if (group.isEmpty()) {
+			byDescription.remove(rule.getDescription());
+			if (byDescription.isEmpty()) {
+				ibans.remove(rule.getiBAN());
+			}
+		}
+		if (descriptions.merge(rule.getDescription(), -1, Integer::sum) == 0) {
+			descriptions.remove(rule.getDescription());
+			automaton = null;
+		}
+		return true;
+	}
+
+	public int size() {
+		return rules.size();
+	}
+
+	/**
+	 * @return whether the rule matches the transaction, regardless of other rules
+	 */
+	public static boolean matches(CategoryRule categoryRule, Transaction transaction) {
+		return categoryRule.getType() == transaction.getType()
+				&& (categoryRule.getiBAN().isEmpty() || categoryRule.getiBAN().equals(transaction.getExternalIBAN()))
+				&& transaction.getDescription().contains(categoryRule.getDescription());
+	}
+
+	/**
+	 * @param transaction the transaction to categorize
+	 * @param accept rules that are not accepted are skipped, e.g. rules of a deleted category
+	 * @return the accepted matching rule with the lowest id, or null if there is none
+	 */
+	public CategoryRule match(Transaction transaction, Predicate<CategoryRule> accept) {
+		Map<String, Map<String, NavigableSet<CategoryRule>>> ibans = groups.get(transaction.getType());
+		if (ibans == null) {
+			return null;
+		}
+		Map<String, NavigableSet<CategoryRule>> anyIban = ibans.getOrDefault("", Collections.emptyMap());
+		Map<String, NavigableSet<CategoryRule>> sameIban = transaction.getExternalIBAN().isEmpty()
+				? Collections.emptyMap() : ibans.getOrDefault(transaction.getExternalIBAN(), Collections.emptyMap());
+		if (anyIban.isEmpty() && sameIban.isEmpty()) {
+			return null;
+		}
+		CategoryRule first = null;
+		for (String description : find(transaction.getDescription())) {
+			first = first(anyIban.get(description), first, accept);
+			first = first(sameIban.get(description), first, accept);
+		}
+		return first;
+	}
+
+	/**
+	 * @return the first accepted rule of the group if it comes before the current first rule
+	 */
+	private static CategoryRule first(NavigableSet<CategoryRule> group, CategoryRule current,
+			Predicate<CategoryRule> accept) {
+		if (group == null) {
+			return current;
+		}
+		for (CategoryRule rule : current == null ? group : group.headSet(current, false)) {
+			if (accept.test(rule)) {
+				return rule;
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * @return the distinct descriptions of the rules that occur in the text, including the empty description
+	 */
+	private Set<String> find(String text) {
+		if (automaton == null) {
+			automaton = build();
+		}
+		Set<String> found = new HashSet<>();
+		if (descriptions.containsKey("")) {
+			found.add("");
+		}
+		Node node = automaton;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			while (node != automaton && !node.children.containsKey(c)) {
+				node = node.fail;
+			}
+			node = node.children.getOrDefault(c, automaton);
+			for (Node match = node.description != null ? node : node.output; match != null; match = match.output) {
+				found.add(match.description);
+			}
+		}
+		return found;
+	}
+
+	private Node build() {
+		Node root = new Node();
+		for (String description : descriptions.keySet()) {
+			if (description.isEmpty()) {
+				continue;
+			}
+			Node node = root;
+			for (int i = 0; i < description.length(); i++) {
+				node = node.children.computeIfAbsent(description.charAt(i), c -> new Node());
+			}
+			node.description = description;
+		}
+		// Breadth first, so the suffix links of shorter prefixes are known first
+		Queue<Node> queue = new ArrayDeque<>();
+		for (Node child : root.children.values()) {
+			child.fail = root;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			Node node = queue.remove();
+			for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+				Node child = entry.getValue();
+				Node fail = node.fail;
+				while (fail != root && !fail.children.containsKey(entry.getKey())) {
+					fail = fail.fail;
+				}
+				child.fail = fail.children.getOrDefault(entry.getKey(), root);
+				child.output = child.fail.description != null ? child.fail : child.fail.output;
+				queue.add(child);
+			}
+		}
+		return root;
+	}
+}
@@ -0,0 +1,112 @@
+package nl.utwente.ing.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the spending of every category over the last 30 days.
+ * The withdrawals of a category are summed per hour in a ring buffer that holds exactly the hours of one
+ * window, together with the sum of the whole ring. When a later hour comes in, the hours that fall out of the
+ * window are cleared and subtracted, so the spending up to the newest hour is read in constant time and a
+ * category never takes more than one ring of memory however many withdrawals it has.
+ * The window is rounded out to whole hours: the spending at a time counts the withdrawals from the start of
+ * the hour 30 days before it. Withdrawals before the ring of their category are dropped, withdrawals after it
+ * move the ring forward.
+ */
+public class CategorySpending {
+	public static final long WINDOW = TimeUnit.DAYS.toSeconds(30);
+	public static final long BUCKET = TimeUnit.HOURS.toSeconds(1);
+	private static final int BUCKETS = (int) (WINDOW / BUCKET) + 1;
+
+	private final Map<Integer, Ring> rings = new HashMap<>();
+
+	/**
+	 * The cents withdrawn per hour in the window of one category.
+	 */
+	private static class Ring {
+		private final long[] buckets = new long[BUCKETS];
+		// The hour of the newest bucket
+		private long newest = Long.MIN_VALUE;
+		private long sum;
+
+		/**
+		 * Moves the newest bucket forward to an hour, clearing the hours that leave the window.
+		 */
+		void advance(long hour) {
+			if (hour <= newest) {
+				return;
+			}
+			if (newest == Long.MIN_VALUE || hour - newest >= BUCKETS) {
+				Arrays.fill(buckets, 0);
+				sum = 0;
+			} else {
+				for (long cleared = newest + 1; cleared <= hour; cleared++) {
+					sum -= buckets[index(cleared)];
+					buckets[index(cleared)] = 0;
+				}
+			}
+			newest = hour;
+		}
+
+		boolean contains(long hour) {
+			return hour <= newest && hour > newest - BUCKETS;
+		}
+
+		static int index(long hour) {
+			return (int) Math.floorMod(hour, (long) BUCKETS);
+		}
+	}
+
+	/**
+	 * @param categoryId the category of the withdrawal
+	 * @param epochSecond the date of the withdrawal
+	 * @param cents the amount of the withdrawal in cents
+	 */
+	public void add(int categoryId, long epochSecond, long cents) {
+		Ring ring = rings.computeIfAbsent(categoryId, id -> new Ring());
+		long hour = Math.floorDiv(epochSecond, BUCKET);
+		ring.advance(hour);
+		if (ring.contains(hour)) {
+			ring.buckets[Ring.index(hour)] += cents;
+			ring.sum += cents;
+		}
+	}
+
+	/**
+	 * Removes a withdrawal that was added before, unless it already left the window.
+	 */
+	public void remove(int categoryId, long epochSecond, long cents) {
+		Ring ring = rings.get(categoryId);
+		long hour = Math.floorDiv(epochSecond, BUCKET);
+		if (ring != null && ring.contains(hour)) {
+			ring.buckets[Ring.index(hour)] -= cents;
+			ring.sum -= cents;
+		}
+	}
+
+	/**
+	 * Returns the spending in the window that ends at a time and moves the window of the category forward to it.
+	 * @param categoryId the category
+	 * @param epochSecond the end of the window
+	 * @return the spending in cents
+	 */
+	public long spending(int categoryId, long epochSecond) {
+		Ring ring = rings.get(categoryId);
+		if (ring == null) {
+			return 0;
+		}
+		long hour = Math.floorDiv(epochSecond, BUCKET);
+		ring.advance(hour);
+		if (ring.newest - hour >= BUCKETS) {
+			return 0;
+		}
+		long cents = ring.sum;
+		// Withdrawals that were moved after the time are not part of its window
+		for (long later = hour + 1; later <= ring.newest; later++) {
+			cents -= ring.buckets[Ring.index(later)];
+		}
+		return cents;
+	}
+}
@@ -0,0 +1,239 @@
+package nl.utwente.ing.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONException;
+
+/**
+ * Writes the JSON of a model object straight into a reused buffer, without building a JSONObject first.
+ * The output is exactly what {@code JSONObject.toString()} gives for the same fields: fields with a null value
+ * are left out, numbers and strings are written the way org.json writes them, and the fields come in the order
+ * org.json writes them, which is the iteration order of a HashMap with their names.
+ * The values are given in the order of the names of the {@link Fields}:
+ * <pre>
+ * private static final JsonWriter.Fields FIELDS = JsonWriter.fields("name", "goal");
+ * return JsonWriter.start(FIELDS).value(name).value(goal).end();
+ * </pre>
+ * Every thread has its own writer, so nothing is allocated for a field apart from the string that is returned.
+ */
+final class JsonWriter {
+	// A writer that grew larger than this for a large value is not kept
+	private static final int MAX_POOLED_CAPACITY = 1 << 16;
+	private static final ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(JsonWriter::new);
+
+	// The values in the order they are given, as JSON
+	private StringBuilder values = new StringBuilder(256);
+	private StringBuilder out = new StringBuilder(256);
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private Fields fields;
+	private int next;
+	private boolean busy;
+
+	/**
+	 * The names of the fields of one kind of object and the order in which org.json writes them.
+	 */
+	static final class Fields {
+		private final String[] names;
+		// The name and colon of every field, as JSON
+		private final String[] keys;
+		// The index of the field that is written at every position
+		private final int[] order;
+
+		private Fields(String[] names) {
+			this.names = names;
+			this.keys = new String[names.length];
+			Map<String, Integer> map = new HashMap<>();
+			for (int i = 0; i < names.length; i++) {
+				keys[i] = quote(new StringBuilder(), names[i]).append(':').toString();
+				if (map.put(names[i], i) != null) {
+					throw new IllegalArgumentException("Duplicate field " + names[i]);
+				}
+			}
+			this.order = map.values().stream().mapToInt(Integer::intValue).toArray();
+		}
+	}
+
+	private JsonWriter() {
+	}
+
+	/**
+	 * @param names the names of the fields, in the order their values are given
+	 */
+	static Fields fields(String... names) {
+		return new Fields(names.clone());
+	}
+
+	/**
+	 * Starts an object. The writer must be ended before the thread starts another object with it.
+	 */
+	static JsonWriter start(Fields fields) {
+		JsonWriter writer = WRITERS.get();
+		if (writer.busy) {
+			// An object is written while writing another, e.g. in the argument of a value
+			writer = new JsonWriter();
+		}
+		writer.busy = true;
+		writer.fields = fields;
+		writer.next = 0;
+		writer.values.setLength(0);
+		if (writer.starts.length < fields.names.length) {
+			writer.starts = new int[fields.names.length];
+			writer.ends = new int[fields.names.length];
+		}
+		return writer;
+	}
+
+	/**
+	 * @param value the value of the next field, a null value leaves the field out
+	 */
+	JsonWriter value(String value) {
+		if (value == null) {
+			return skip();
+		}
+		int start = values.length();
+		quote(values, value);
+		return mark(start);
+	}
+
+	JsonWriter value(Enum<?> value) {
+		return value(value == null ? null : value.toString());
+	}
+
+	JsonWriter value(int value) {
+		int start = values.length();
+		values.append(value);
+		return mark(start);
+	}
+
+	/**
+	 * @throws JSONException if the value is not finite, like org.json
+	 */
+	JsonWriter value(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new JSONException("JSON does not allow non-finite numbers.");
+		}
+		int start = values.length();
+		values.append(value);
+		// Like org.json, a decimal without exponent loses its trailing zeros and a trailing point
+		if (values.indexOf("E", start) < 0) {
+			int end = values.length();
+			while (values.charAt(end - 1) == '0') {
+				end--;
+			}
+			if (values.charAt(end - 1) == '.') {
+				end--;
+			}
+			values.setLength(end);
+		}
+		return mark(start);
+	}
+
+	JsonWriter value(boolean value) {
+		int start = values.length();
+		values.append(value);
+		return mark(start);
+	}
+
+	/**
+	 * @return the JSON of the object
+	 * @throws IllegalStateException if not every field has a value
+	 */
+	String end() {
+		if (next != fields.names.length) {
+			busy = false;
+			throw new IllegalStateException("Expected " + fields.names.length + " values but got " + next);
+		}
+		out.setLength(0);
+		out.append('{');
+		for (int field : fields.order) {
+			if (starts[field] < 0) {
+				continue;
+			}
+			if (out.length() > 1) {
+				out.append(',');
+			}
+			out.append(fields.keys[field]).append(values, starts[field], ends[field]);
+		}
+		String json = out.append('}').toString();
+		if (values.capacity() > MAX_POOLED_CAPACITY || out.capacity() > MAX_POOLED_CAPACITY) {
+			values = new StringBuilder(256);
+			out = new StringBuilder(256);
+		}
+		fields = null;
+		busy = false;
+		return json;
+	}
+
+	private JsonWriter skip() {
+		checkField();
+		starts[next++] = -1;
+		return this;
+	}
+
+	private JsonWriter mark(int start) {
+		checkField();
+		starts[next] = start;
+		ends[next++] = values.length();
+		return this;
+	}
+
+	private void checkField() {
+		if (next == fields.names.length) {
+			throw new IllegalStateException("More values than fields " + Arrays.toString(fields.names));
+		}
+	}
+
+	/**
+	 * Writes a string the way JSONObject.quote does.
+	 */
+	private static StringBuilder quote(StringBuilder out, String string) {
+		out.append('"');
+		char c = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char previous = c;
+			c = string.charAt(i);
+			switch (c) {
+			case '\\':
+			case '"':
+				out.append('\\').append(c);
+				break;
+			case '/':
+				if (previous == '<') {
+					out.append('\\');
+				}
+				out.append(c);
+				break;
+			case '\b':
+				out.append("\\b");
+				break;
+			case '\t':
+				out.append("\\t");
+				break;
+			case '\n':
+				out.append("\\n");
+				break;
+			case '\f':
+				out.append("\\f");
+				break;
+			case '\r':
+				out.append("\\r");
+				break;
+			default:
+				if (c < ' ' || (c >= '\u0080' && c < '\u00a0') || (c >= '\u2000' && c < '\u2100')) {
+					String hex = Integer.toHexString(c);
+					out.append("\\u");
+					for (int pad = hex.length(); pad < 4; pad++) {
+						out.append('0');
+					}
+					out.append(hex);
+				} else {
+					out.append(c);
+				}
+			}
+		}
+		return out.append('"');
+	}
+}
@@ -0,0 +1,103 @@
+package nl.utwente.ing.model;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * A date of the API kept both as its string and as epoch seconds.
+ * Whichever form is given is stored as is, the other form is computed the first time it is asked for and
+ * cached, so a date is parsed or formatted at most once no matter how often it is compared.
+ * Like the API, dates are formatted in UTC with minute precision. Parsing honours the offset or zone of a
+ * date, so 2018-04-08T23:15+02:00 is the same instant as 2018-04-08T21:15Z, and dates without an offset are
+ * taken as UTC. The static methods are the conversions of the API for the server as well.
+ */
+public final class LazyDate {
+	public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmX")
+			.withZone(ZoneOffset.UTC);
+
+	private static final long UNKNOWN = Long.MIN_VALUE;
+	private static final long INVALID = Long.MIN_VALUE + 1;
+
+	private volatile String text;
+	private volatile long epochSecond;
+
+	private LazyDate(String text, long epochSecond) {
+		this.text = text;
+		this.epochSecond = epochSecond;
+	}
+
+	static LazyDate of(String text) {
+		return text == null ? null : new LazyDate(text, UNKNOWN);
+	}
+
+	/**
+	 * @param epochSecond the date, truncated to the minute like the string form of the API
+	 */
+	static LazyDate of(long epochSecond) {
+		return new LazyDate(null, Math.floorDiv(epochSecond, 60L) * 60);
+	}
+
+	public static String format(long epochSecond) {
+		return FORMATTER.format(Instant.ofEpochSecond(epochSecond));
+	}
+
+	/**
+	 * Parses an ISO date-time at its offset or zone, dates without either are taken as UTC.
+	 * @return the date in epoch seconds
+	 * @throws DateTimeParseException if the date is not a valid ISO date-time
+	 */
+	public static long parse(String date) {
+		TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(date, Instant::from, LocalDateTime::from);
+		if (parsed instanceof Instant) {
+			return ((Instant) parsed).getEpochSecond();
+		}
+		return ((LocalDateTime) parsed).toEpochSecond(ZoneOffset.UTC);
+	}
+
+	/**
+	 * @return whether the string form is a valid ISO date-time
+	 */
+	boolean isValid() {
+		return cached() != INVALID;
+	}
+
+	/**
+	 * @return the date in epoch seconds
+	 * @throws DateTimeParseException if the string form is not a valid ISO date-time
+	 */
+	long epochSecond() {
+		long result = cached();
+		if (result == INVALID) {
+			throw new DateTimeParseException("Invalid date " + text, text, 0);
+		}
+		return result;
+	}
+
+	private long cached() {
+		long result = epochSecond;
+		if (result == UNKNOWN) {
+			try {
+				result = parse(text);
+			} catch (DateTimeException e) {
+				result = INVALID;
+			}
+			epochSecond = result;
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		String result = text;
+		if (result == null) {
+			result = format(epochSecond);
+			text = result;
+		}
+		return result;
+	}
+}
@@ -1,14 +1,9 @@
 package nl.utwente.ing.model;
 
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-
 public class Message {
 	private int id;
 	private String message;
-	private String date;
+	private LazyDate date;
 	private boolean read;
 	private MessageType type;
 	
@@ -18,12 +13,9 @@ public class Message {
 	
 	public Message(int id, String message, long unixTimestamp, 
 			boolean read, String type) {
-		String date = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmX")
-                .withZone(ZoneOffset.UTC)
-                .format(Instant.ofEpochSecond(unixTimestamp));
 		setId(id);
 		setMessage(message);
-		setDate(date);
+		this.date = LazyDate.of(unixTimestamp);
 		setRead(read);
 		setType(MessageType.valueOf(type));
 	}
@@ -45,11 +37,11 @@ public class Message {
 	}
 
 	public String getDate() {
-		return date;
+		return date == null ? null : date.toString();
 	}
 
 	public void setDate(String date) {
-		this.date = date;
+		this.date = LazyDate.of(date);
 	}
 
 	public boolean isRead() {
@@ -69,8 +61,7 @@ public class Message {
 	}
 	
 	public long returnUnixTimestamp() {
-		DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-		return LocalDateTime.from(formatter.parse(date)).toEpochSecond(ZoneOffset.UTC);
+		return date.epochSecond();
 	}
 	
 	public boolean equalsData(Message m) {
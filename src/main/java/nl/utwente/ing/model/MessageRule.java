@@ -1,8 +1,8 @@
 package nl.utwente.ing.model;
 
-import org.json.JSONObject;
-
 public class MessageRule {
+	private static final JsonWriter.Fields DATA_FIELDS = JsonWriter.fields("type", "value", "category_id");
+
 	private int id;
 	private MessageType type;
 	private double value;
@@ -51,12 +51,10 @@ public class MessageRule {
 	}
 
 	public String toStringData() {
-		JSONObject json = new JSONObject();
-		json
-				.put("type", type.toString())
-				.put("value", value)
-				.put("category_id", category_id);
-		return json.toString();
+		return JsonWriter.start(DATA_FIELDS)
+				.value(type.toString())
+				.value(value)
+				.value(category_id).end();
 	}
 
 	public boolean equalsData(MessageRule mr){
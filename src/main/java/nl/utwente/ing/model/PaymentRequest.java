@@ -1,18 +1,15 @@
 package nl.utwente.ing.model;
 
-import org.json.JSONObject;
-
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
 public class PaymentRequest {
+	private static final JsonWriter.Fields DATA_FIELDS = JsonWriter.fields("amount", "description", "due_date",
+			"number_of_requests");
+
 	private int id;
 	private String description;
-	private String due_date;
+	private LazyDate due_date;
 	private double amount;
 	private int number_of_requests;
 	private boolean filled;
@@ -26,9 +23,7 @@ public class PaymentRequest {
 	public PaymentRequest(int id, String description, long unixTimestamp, double amount, int number_of_requests,
 			boolean filled, List<Transaction> transactions) {
 		
-		due_date = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmX")
-                .withZone(ZoneOffset.UTC)
-                .format(Instant.ofEpochSecond(unixTimestamp));
+		due_date = LazyDate.of(unixTimestamp);
 		this.id = id;
 		this.description = description;
 		this.amount = amount;
@@ -58,7 +53,7 @@ public class PaymentRequest {
 	 * @return the due_date
 	 */
 	public String getDue_date() {
-		return due_date;
+		return due_date == null ? null : due_date.toString();
 	}
 
 
@@ -66,7 +61,7 @@ public class PaymentRequest {
 	 * @param due_date the due_date to set
 	 */
 	public void setDue_date(String due_date) {
-		this.due_date = due_date;
+		this.due_date = LazyDate.of(due_date);
 	}
 
 
@@ -157,12 +152,11 @@ public class PaymentRequest {
 	}
 	
 	public long returnUnixTimestamp() {
-		DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-		return LocalDateTime.from(formatter.parse(due_date)).toEpochSecond(ZoneOffset.UTC);
+		return due_date.epochSecond();
 	}
 	
 	public boolean equalsData(PaymentRequest pr) {
-		if (pr.getAmount() == amount && pr.getDescription().equals(description) && pr.getDue_date().equals(due_date)
+		if (pr.getAmount() == amount && pr.getDescription().equals(description) && pr.getDue_date().equals(getDue_date())
 				&& pr.getNumber_of_requests() == number_of_requests && pr.getTransactions().equals(transactions)) {
 			return true;
 		}
@@ -170,11 +164,10 @@ public class PaymentRequest {
 	}
 	
 	public String toStringData() {
-		JSONObject json = new JSONObject();
-		json.put("amount", amount)
-			.put("description", description)
-			.put("due_date", due_date)
-			.put("number_of_requests", number_of_requests);
-		return json.toString();
+		return JsonWriter.start(DATA_FIELDS)
+			.value(amount)
+			.value(description)
+			.value(getDue_date())
+			.value(number_of_requests).end();
 	}
 }
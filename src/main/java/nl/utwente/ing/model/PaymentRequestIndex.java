@@ -0,0 +1,125 @@
+package nl.utwente.ing.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Finds the open payment request that a deposit fills and the open payment requests that passed their due date.
+ * Open requests are kept per amount in cents, ordered by due date and then by id, so the request a deposit
+ * fills is the one with the earliest due date that is not past, found in O(log n). Every request is also
+ * scheduled in a {@link TimerWheel} at its due date, so the expired requests are found in time proportional
+ * to their number however far time moves on. A request leaves the index when it is filled; its timer stays
+ * in the wheel and is skipped when it fires.
+ * An expired request can still be filled by a back-dated deposit at or before its due date.
+ */
+public class PaymentRequestIndex {
+	private final Map<Long, NavigableSet<Entry>> byAmount = new HashMap<>();
+	private final TimerWheel<Entry> dueDates = new TimerWheel<>();
+	private final Map<Integer, Entry> entries = new HashMap<>();
+
+	/**
+	 * An open payment request, ordered by due date and then by id.
+	 */
+	private static class Entry implements Comparable<Entry> {
+		private final long due;
+		private final long cents;
+		private final int id;
+		private final PaymentRequest paymentRequest;
+
+		Entry(long due, long cents, int id, PaymentRequest paymentRequest) {
+			this.due = due;
+			this.cents = cents;
+			this.id = id;
+			this.paymentRequest = paymentRequest;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int result = Long.compare(due, other.due);
+			return result != 0 ? result : Integer.compare(id, other.id);
+		}
+	}
+
+	/**
+	 * Adds an open payment request, replacing the request with the same id.
+	 * @param paymentRequest a payment request that is not filled
+	 * @param due the due date in epoch seconds
+	 */
+	public void add(PaymentRequest paymentRequest, long due) {
+		remove(paymentRequest.getId());
+		Entry entry = new Entry(due, cents(paymentRequest.getAmount()), paymentRequest.getId(), paymentRequest);
+		entries.put(entry.id, entry);
+		byAmount.computeIfAbsent(entry.cents, cents -> new TreeSet<>()).add(entry);
+		dueDates.schedule(due, entry);
+	}
+
+	/**
+	 * Removes a payment request.
+	 * @return whether the request was open
+	 */
+	public boolean remove(int paymentRequestId) {
+		Entry entry = entries.remove(paymentRequestId);
+		if (entry == null) {
+			return false;
+		}
+		NavigableSet<Entry> sameAmount = byAmount.get(entry.cents);
+		sameAmount.remove(entry);
+		if (sameAmount.isEmpty()) {
+			byAmount.remove(entry.cents);
+		}
+		return true;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Takes the open requests whose due date is before a time, each request is returned only once.
+	 * @param epochSecond the current time
+	 * @return the requests that expired since the last call, in order of due date
+	 */
+	public List<PaymentRequest> expire(long epochSecond) {
+		List<PaymentRequest> expired = new ArrayList<>();
+		for (Entry entry : dueDates.advance(epochSecond - 1)) {
+			// Filled and replaced requests are no longer open
+			if (entries.get(entry.id) == entry) {
+				expired.add(entry.paymentRequest);
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Adds a deposit to the open request with the same amount and the earliest due date at or after the deposit.
+	 * The request is filled, and leaves the index, once it has its number of requests.
+	 * @param transaction a deposit
+	 * @param epochSecond the date of the deposit
+	 * @return the request the deposit was added to, or null if there is none
+	 */
+	public PaymentRequest fill(Transaction transaction, long epochSecond) {
+		NavigableSet<Entry> sameAmount = byAmount.get(cents(transaction.getAmount()));
+		if (sameAmount == null) {
+			return null;
+		}
+		Entry entry = sameAmount.ceiling(new Entry(epochSecond, 0, Integer.MIN_VALUE, null));
+		if (entry == null) {
+			return null;
+		}
+		PaymentRequest paymentRequest = entry.paymentRequest;
+		paymentRequest.getTransactions().add(transaction);
+		if (paymentRequest.getTransactions().size() >= paymentRequest.getNumber_of_requests()) {
+			paymentRequest.setFilled(true);
+			remove(entry.id);
+		}
+		return paymentRequest;
+	}
+
+	private static long cents(double amount) {
+		return Math.round(amount * 100);
+	}
+}
@@ -1,8 +1,9 @@
 package nl.utwente.ing.model;
 
-import org.json.JSONObject;
-
 public class SavingGoal {
+	private static final JsonWriter.Fields DATA_FIELDS = JsonWriter.fields("name", "savePerMonth",
+			"minBalanceRequired", "goal", "balance");
+
 	private int id;
 	private String name;
 	private double goal;
@@ -101,12 +102,11 @@ public class SavingGoal {
 	}
 	
 	public String toStringData() {
-		JSONObject json = new JSONObject();
-		json.put("name", name)
-			.put("savePerMonth", savePerMonth)
-			.put("minBalanceRequired", minBalanceRequired)
-			.put("goal", goal)
-			.put("balance", balance);
-		return json.toString();
+		return JsonWriter.start(DATA_FIELDS)
+			.value(name)
+			.value(savePerMonth)
+			.value(minBalanceRequired)
+			.value(goal)
+			.value(balance).end();
 	}
 }
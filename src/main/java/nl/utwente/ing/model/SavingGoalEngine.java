@@ -0,0 +1,117 @@
+package nl.utwente.ing.model;
+
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Sets money aside for saving goals at the start of every month the clock of a session moves past.
+ * The clock is the date of the latest transaction and only moves forward, so back-dated transactions do
+ * not set money aside again. The start of the next month is kept as the next event; when the clock moves
+ * past it, every goal that can still receive money is visited once, in order of id. Filled goals are
+ * dropped from the schedule, so a month costs O(goals that are not yet filled).
+ * Between two transactions only the set asides change the balance, so once a month sets nothing aside no
+ * later month before the clock will either. The remaining months are skipped instead of visited one by one,
+ * which bounds a jump of years by the number of months in which money actually moves.
+ */
+public class SavingGoalEngine {
+	/**
+	 * Receives the effects of a month start on the account.
+	 */
+	public interface Listener {
+		/**
+		 * Money was moved from the account to the saving goals.
+		 * @param epochSecond the start of the month
+		 * @param amount the total amount moved
+		 */
+		void setAside(long epochSecond, double amount);
+
+		/**
+		 * A saving goal reached its goal.
+		 * @param savingGoal the filled saving goal
+		 * @param epochSecond the start of the month
+		 */
+		void filled(SavingGoal savingGoal, long epochSecond);
+	}
+
+	private final Listener listener;
+	// The saving goals that can still receive money
+	private final NavigableMap<Integer, SavingGoal> scheduled = new TreeMap<>();
+	private long clock = Long.MIN_VALUE;
+	private long nextMonth = Long.MAX_VALUE;
+
+	public SavingGoalEngine(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Schedules a saving goal, replacing the saving goal with the same id.
+	 */
+	public void add(SavingGoal savingGoal) {
+		scheduled.remove(savingGoal.getId());
+		if (savingGoal.getSavePerMonth() > 0 && savingGoal.getBalance() < savingGoal.getGoal()) {
+			scheduled.put(savingGoal.getId(), savingGoal);
+		}
+	}
+
+	public void remove(int savingGoalId) {
+		scheduled.remove(savingGoalId);
+	}
+
+	/**
+	 * @return the date of the latest transaction, or Long.MIN_VALUE before the first transaction
+	 */
+	public long getClock() {
+		return clock;
+	}
+
+	/**
+	 * Moves the clock forward to the date of a transaction and sets money aside at the start of every month
+	 * it passes. The clock does not move for a date before it.
+	 * @param epochSecond the date of the transaction
+	 * @param balance the balance of the account before the transaction
+	 */
+	public void advance(long epochSecond, double balance) {
+		if (epochSecond <= clock) {
+			return;
+		}
+		if (clock != Long.MIN_VALUE) {
+			long cents = Math.round(balance * 100);
+			for (; nextMonth <= epochSecond; nextMonth = TimeInterval.MONTH.plus(nextMonth, 1)) {
+				long moved = setAside(nextMonth, cents);
+				if (moved == 0) {
+					break;
+				}
+				cents -= moved;
+			}
+		}
+		clock = epochSecond;
+		nextMonth = TimeInterval.MONTH.plus(TimeInterval.MONTH.truncate(epochSecond), 1);
+	}
+
+	/**
+	 * Sets money aside for every scheduled saving goal in order of id, as long as the balance allows it.
+	 * @return the total amount moved in cents
+	 */
+	private long setAside(long epochSecond, long cents) {
+		long moved = 0;
+		for (Iterator<SavingGoal> iterator = scheduled.values().iterator(); iterator.hasNext();) {
+			SavingGoal savingGoal = iterator.next();
+			double amount = Math.min(savingGoal.getSavePerMonth(), savingGoal.getGoal() - savingGoal.getBalance());
+			double balance = (cents - moved) / 100.0;
+			if (balance < savingGoal.getMinBalanceRequired() || balance < amount) {
+				continue;
+			}
+			moved += Math.round(amount * 100);
+			savingGoal.setBalance(savingGoal.getBalance() + amount);
+			if (savingGoal.getBalance() >= savingGoal.getGoal()) {
+				iterator.remove();
+				listener.filled(savingGoal, epochSecond);
+			}
+		}
+		if (moved != 0) {
+			listener.setAside(epochSecond, moved / 100.0);
+		}
+		return moved;
+	}
+}
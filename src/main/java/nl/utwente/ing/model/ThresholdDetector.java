@@ -0,0 +1,203 @@
+package nl.utwente.ing.model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects the balance and spending thresholds a stream of transactions crosses: the balance dropping below
+ * zero, the balance reaching a new high of the last three months and the spending of a category in the last
+ * 30 days reaching the value of a message rule.
+ * The balance is kept as a running total. The balances after the transactions of the last three months are
+ * kept in order together with a monotonic deque of the ones that can still become the highest, so the
+ * highest balance is the head of the deque. The window only moves forward, so every balance enters and
+ * leaves it once and a transaction costs O(1) amortized. The time of the window is the clock: the date of
+ * the latest transaction, so a back-dated transaction changes the balance at the clock, not at its own date.
+ * The spending of a category is read from {@link CategorySpending}, which sums the withdrawals per hour.
+ */
+public class ThresholdDetector {
+	public static final int HIGHEST_BALANCE_MONTHS = 3;
+
+	/**
+	 * Receives the thresholds that are crossed.
+	 */
+	public interface Listener {
+		/**
+		 * The balance went from zero or more to less than zero.
+		 * @param epochSecond the date of the transaction
+		 */
+		void belowZero(long epochSecond);
+
+		/**
+		 * The balance is higher than it has been in the last three months.
+		 * @param epochSecond the date of the transaction
+		 * @param balance the new balance
+		 */
+		void newHigh(long epochSecond, double balance);
+
+		/**
+		 * The spending of the category of a message rule in the last 30 days reached its value.
+		 * @param messageRule the message rule
+		 * @param epochSecond the date of the withdrawal
+		 */
+		void thresholdReached(MessageRule messageRule, long epochSecond);
+	}
+
+	private final Listener listener;
+	private final Map<Integer, List<MessageRule>> messageRules = new HashMap<>();
+	private final Map<Integer, Booking> bookings = new HashMap<>();
+	private long balance;
+	private long clock = Long.MIN_VALUE;
+	private long firstTime = Long.MAX_VALUE;
+	// The last balance before the window and the balances in the window
+	private Point before;
+	private final Deque<Point> points = new ArrayDeque<>();
+	// The points that are higher than every later point, highest first
+	private final Deque<Point> highs = new ArrayDeque<>();
+	private final CategorySpending spending = new CategorySpending();
+
+	/**
+	 * The balance after a transaction.
+	 */
+	private static class Point {
+		private final long time;
+		private final long cents;
+
+		Point(long time, long cents) {
+			this.time = time;
+			this.cents = cents;
+		}
+	}
+
+	/**
+	 * The effect of a transaction on the balance and on the spending of its category.
+	 */
+	private static class Booking {
+		private final long cents;
+		private final long time;
+		// The category whose spending includes the withdrawal, or null
+		private final Integer categoryId;
+
+		Booking(long cents, long time, Integer categoryId) {
+			this.cents = cents;
+			this.time = time;
+			this.categoryId = categoryId;
+		}
+	}
+
+	public ThresholdDetector(Listener listener) {
+		this.listener = listener;
+	}
+
+	public void addMessageRule(MessageRule messageRule) {
+		messageRules.computeIfAbsent(messageRule.getCategory_id(), categoryId -> new ArrayList<>()).add(messageRule);
+	}
+
+	/**
+	 * Books a new transaction and reports whether the balance dropped below zero or reached a new high.
+	 * @param transaction the transaction, with its category
+	 * @param epochSecond the date of the transaction
+	 */
+	public void add(Transaction transaction, long epochSecond) {
+		long previous = balance;
+		book(transaction, epochSecond);
+		firstTime = Math.min(firstTime, epochSecond);
+		clock = Math.max(clock, epochSecond);
+
+		long windowStart = Instant.ofEpochSecond(clock).atZone(ZoneOffset.UTC)
+				.minusMonths(HIGHEST_BALANCE_MONTHS).toEpochSecond();
+		// The balance before the window is the balance at its start, so the last point before it stays
+		while (!points.isEmpty() && points.getFirst().time < windowStart) {
+			if (before != null && before == highs.peekFirst()) {
+				highs.removeFirst();
+			}
+			before = points.removeFirst();
+		}
+		if (previous >= 0 && balance < 0) {
+			listener.belowZero(epochSecond);
+		}
+		if (balance > previous && firstTime <= windowStart && !highs.isEmpty() && balance > highs.getFirst().cents) {
+			listener.newHigh(epochSecond, balance / 100.0);
+		}
+
+		Point point = new Point(clock, balance);
+		points.addLast(point);
+		while (!highs.isEmpty() && highs.getLast().cents <= balance) {
+			highs.removeLast();
+		}
+		highs.addLast(point);
+	}
+
+	/**
+	 * Replaces a booked transaction after its amount, date or category changed, without reporting anything.
+	 * @param transaction the transaction, with its category
+	 * @param epochSecond the date of the transaction
+	 */
+	public void update(Transaction transaction, long epochSecond) {
+		remove(transaction.getId());
+		book(transaction, epochSecond);
+	}
+
+	/**
+	 * Takes a deleted transaction out of the balance and the spending of its category.
+	 */
+	public void remove(int transactionId) {
+		Booking booking = bookings.remove(transactionId);
+		if (booking == null) {
+			return;
+		}
+		balance -= booking.cents;
+		if (booking.categoryId != null) {
+			spending.remove(booking.categoryId, booking.time, -booking.cents);
+		}
+	}
+
+	/**
+	 * Changes the balance without a transaction, e.g. for money moved to a saving goal.
+	 */
+	public void transfer(double amount) {
+		balance += Math.round(amount * 100);
+	}
+
+	/**
+	 * Reports every message rule of the category of a withdrawal whose value is reached by the spending in
+	 * the 30 days up to and including the withdrawal. The dates that are checked must not go back in time.
+	 * @param transaction the transaction, nothing is reported if it is not a withdrawal with a category
+	 * @param epochSecond the date of the transaction
+	 */
+	public void checkSpending(Transaction transaction, long epochSecond) {
+		if (transaction.getType() != TransactionType.withdrawal || transaction.getCategory() == null) {
+			return;
+		}
+		int categoryId = transaction.getCategory().getId();
+		List<MessageRule> rules = messageRules.get(categoryId);
+		if (rules == null) {
+			return;
+		}
+		long cents = spending.spending(categoryId, epochSecond);
+		for (MessageRule messageRule : rules) {
+			if (cents / 100.0 >= messageRule.getValue()) {
+				listener.thresholdReached(messageRule, epochSecond);
+			}
+		}
+	}
+
+	private void book(Transaction transaction, long epochSecond) {
+		long cents = Math.round(transaction.getAmount() * 100);
+		Integer categoryId = null;
+		if (transaction.getType() == TransactionType.withdrawal) {
+			cents = -cents;
+			if (transaction.getCategory() != null) {
+				categoryId = transaction.getCategory().getId();
+				spending.add(categoryId, epochSecond, -cents);
+			}
+		}
+		balance += cents;
+		bookings.put(transaction.getId(), new Booking(cents, epochSecond, categoryId));
+	}
+}
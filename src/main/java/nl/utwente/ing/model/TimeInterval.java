@@ -1,10 +1,16 @@
 package nl.utwente.ing.model;
 
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
 public enum TimeInterval {
 	HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS), WEEK(ChronoUnit.WEEKS), MONTH(ChronoUnit.MONTHS), YEAR(ChronoUnit.YEARS);
 	
+	private static final long SECONDS_PER_HOUR = 3600;
+	private static final long SECONDS_PER_DAY = 86400;
+	// 1970-01-01 was a Thursday, three days after the start of its week
+	private static final int EPOCH_DAY_OF_WEEK = 3;
+	
 	private ChronoUnit unit;
 	
 	TimeInterval(ChronoUnit unit) {
@@ -19,5 +25,45 @@ public enum TimeInterval {
 		this.unit = unit;
 	}
 	
+	/**
+	 * Returns the start of the interval that contains a point in time, in UTC. Weeks start on Monday.
+	 * @param epochSecond the point in time
+	 * @return the start of the interval in epoch seconds
+	 */
+	public long truncate(long epochSecond) {
+		long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+		switch (this) {
+		case HOUR:
+			return Math.floorDiv(epochSecond, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+		case DAY:
+			return epochDay * SECONDS_PER_DAY;
+		case WEEK:
+			return (epochDay - Math.floorMod(epochDay + EPOCH_DAY_OF_WEEK, 7L)) * SECONDS_PER_DAY;
+		case MONTH:
+			return LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay() * SECONDS_PER_DAY;
+		default:
+			return LocalDate.ofEpochDay(epochDay).withDayOfYear(1).toEpochDay() * SECONDS_PER_DAY;
+		}
+	}
+	
+	/**
+	 * Moves the start of an interval a number of intervals forward or, when negative, backward.
+	 * @param intervalStart the start of an interval, as returned by {@link #truncate(long)}
+	 * @param intervals the number of intervals to move
+	 * @return the start of the resulting interval in epoch seconds
+	 */
+	public long plus(long intervalStart, long intervals) {
+		switch (this) {
+		case HOUR:
+			return intervalStart + intervals * SECONDS_PER_HOUR;
+		case DAY:
+			return intervalStart + intervals * SECONDS_PER_DAY;
+		case WEEK:
+			return intervalStart + intervals * 7 * SECONDS_PER_DAY;
+		default:
+			return LocalDate.ofEpochDay(Math.floorDiv(intervalStart, SECONDS_PER_DAY)).plus(intervals, unit)
+					.toEpochDay() * SECONDS_PER_DAY;
+		}
+	}
 
 }
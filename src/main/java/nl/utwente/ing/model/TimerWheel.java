@@ -0,0 +1,128 @@
+package nl.utwente.ing.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A hierarchical timer wheel that hands out values once the time passes their deadline.
+ * Every level has 64 slots, a slot of level L covers 64^L seconds. A timer is kept at the highest level in
+ * which its deadline differs from the current time, so each level only holds the timers of the current
+ * window of the level above it. Advancing the time fires the slots that were passed and moves the timers of
+ * the slot the new time falls in down to lower levels. This visits at most 64 slots per level however far
+ * the time jumps, so a jump of years costs the same as a jump of a second and a timer is moved at most once
+ * per level.
+ * Times are epoch seconds; the time only moves forward. A timer whose deadline has already passed when it
+ * is scheduled fires on the next advance to or past its deadline.
+ */
+public class TimerWheel<T> {
+	private static final int BITS = 6;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+	private static final Comparator<Timer<?>> BY_DEADLINE = Comparator.<Timer<?>>comparingLong(timer -> timer.deadline)
+			.thenComparingLong(timer -> timer.sequence);
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final List<Timer<T>>[][] slots = new List[LEVELS][SLOTS];
+	private final List<Timer<T>> overdue = new ArrayList<>();
+	// The time up to which all timers have fired, as an unsigned number so the bits order like the times
+	private long now;
+	private long sequence;
+
+	private static class Timer<T> {
+		private final long deadline;
+		private final long sequence;
+		private final T value;
+
+		Timer(long deadline, long sequence, T value) {
+			this.deadline = deadline;
+			this.sequence = sequence;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * @param deadline the time in epoch seconds after which the value is handed out
+	 * @param value the value
+	 */
+	public void schedule(long deadline, T value) {
+		Timer<T> timer = new Timer<>(deadline, sequence++, value);
+		if (!place(timer)) {
+			overdue.add(timer);
+		}
+	}
+
+	/**
+	 * Moves the time forward and takes the values whose deadline is at or before it. A time before the
+	 * current time only takes the overdue values with a deadline at or before it.
+	 * @param time the new time in epoch seconds
+	 * @return the values in order of deadline and then of scheduling
+	 */
+	public List<T> advance(long time) {
+		List<Timer<T>> fired = new ArrayList<>();
+		for (Iterator<Timer<T>> iterator = overdue.iterator(); iterator.hasNext();) {
+			Timer<T> timer = iterator.next();
+			if (timer.deadline <= time) {
+				fired.add(timer);
+				iterator.remove();
+			}
+		}
+
+		long target = unsigned(time);
+		if (Long.compareUnsigned(target, now) > 0) {
+			List<Timer<T>> cascaded = new ArrayList<>();
+			for (int level = LEVELS - 1; level >= 0; level--) {
+				int shift = level * BITS;
+				int from = (int) (now >>> shift) & MASK;
+				// A level holds the window of the current time at the level above, which the target may leave
+				boolean sameWindow = level == LEVELS - 1 || now >>> (shift + BITS) == target >>> (shift + BITS);
+				int to = sameWindow ? (int) (target >>> shift) & MASK : SLOTS;
+				for (int slot = from + 1; slot <= Math.min(to, MASK); slot++) {
+					List<Timer<T>> timers = slots[level][slot];
+					if (timers != null) {
+						// The slot the target falls in is only partly passed
+						(slot == to ? cascaded : fired).addAll(timers);
+						slots[level][slot] = null;
+					}
+				}
+			}
+			now = target;
+			for (Timer<T> timer : cascaded) {
+				if (!place(timer)) {
+					fired.add(timer);
+				}
+			}
+		}
+
+		fired.sort(BY_DEADLINE);
+		List<T> values = new ArrayList<>(fired.size());
+		for (Timer<T> timer : fired) {
+			values.add(timer.value);
+		}
+		return values;
+	}
+
+	/**
+	 * Puts a timer in the slot of the highest level where its deadline differs from the current time.
+	 * @return false if the deadline is not after the current time
+	 */
+	private boolean place(Timer<T> timer) {
+		long deadline = unsigned(timer.deadline);
+		if (Long.compareUnsigned(deadline, now) <= 0) {
+			return false;
+		}
+		int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(deadline ^ now)) / BITS;
+		int slot = (int) (deadline >>> (level * BITS)) & MASK;
+		if (slots[level][slot] == null) {
+			slots[level][slot] = new ArrayList<>();
+		}
+		slots[level][slot].add(timer);
+		return true;
+	}
+
+	private static long unsigned(long time) {
+		return time ^ Long.MIN_VALUE;
+	}
+}
@@ -1,22 +1,23 @@
 package nl.utwente.ing.model;
 
 import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
-import org.json.JSONObject;
 import org.springframework.stereotype.Component;
 
 @Component
 public class Transaction {
+	private static final JsonWriter.Fields FIELDS = JsonWriter.fields("id", "amount", "categoryID", "date",
+			"description", "externalIBAN", "type");
+	private static final JsonWriter.Fields DATA_FIELDS = JsonWriter.fields("amount", "date", "description",
+			"externalIBAN", "type");
+
 	private int id;
 	
 	private String externalIBAN;
 	
 	private double amount;
 	private String description = "";
-	private String date;
+	private LazyDate date;
 	private TransactionType type;
 	private Category category;
 	
@@ -53,17 +54,19 @@ public class Transaction {
 	}
 
 	public String getDate() {
-		return date;
+		return date == null ? null : date.toString();
 	}
 
 	public void setDate(String date) {
-		this.date = date;
+		this.date = LazyDate.of(date);
 	}
 	
 	public void setDate(Instant i) {
-		this.date =  DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmX")
-                .withZone(ZoneOffset.UTC)
-                .format(i);
+		this.date = LazyDate.of(i.getEpochSecond());
+	}
+	
+	public long returnUnixTimestamp() {
+		return date.epochSecond();
 	}
 
 	public Category getCategory() {
@@ -113,10 +116,7 @@ public class Transaction {
 		}
 		
 		// if the date is not valid date-time
-		try {
-			DateTimeFormatter timeFormatter = DateTimeFormatter.ISO_DATE_TIME;
-		    timeFormatter.parse(date);
-		} catch (DateTimeParseException e) {
+		if (!date.isValid()) {
 			return false;
 		}
 		
@@ -133,7 +133,7 @@ public class Transaction {
 	}
 	
 	public boolean equals(Transaction t) {
-		if (t.getAmount() == amount && t.CategoryID() == CategoryID() && t.getDate().equals(date) 
+		if (t.getAmount() == amount && t.CategoryID() == CategoryID() && t.getDate().equals(getDate()) 
 				&& t.getDescription().equals(description) && t.getExternalIBAN().equals(externalIBAN)
 				&& t.getType().equals(type)) {
 			return true;
@@ -143,13 +143,25 @@ public class Transaction {
 	
 	@Override
 	public String toString() {
-		return new JSONObject()
-				.put("id", id)
-				.put("amount", amount)
-				.put("categoryID", CategoryID())
-				.put("date", date)
-				.put("description", description)
-				.put("externalIBAN", externalIBAN)
-				.put("type", type).toString();
+		return JsonWriter.start(FIELDS)
+				.value(id)
+				.value(amount)
+				.value(CategoryID())
+				.value(getDate())
+				.value(description)
+				.value(externalIBAN)
+				.value(type).end();
+	}
+
+	/**
+	 * @return the JSON of the fields that are posted to create the transaction, without id and category
+	 */
+	public String toStringData() {
+		return JsonWriter.start(DATA_FIELDS)
+				.value(amount)
+				.value(getDate())
+				.value(description)
+				.value(externalIBAN)
+				.value(type).end();
 	}
 }
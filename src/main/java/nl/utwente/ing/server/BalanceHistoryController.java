@@ -0,0 +1,32 @@
+package nl.utwente.ing.server;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import nl.utwente.ing.model.CandleStick;
+import nl.utwente.ing.model.TimeInterval;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/balance/history")
+public class BalanceHistoryController {
+	private static final int MAX_INTERVALS = 200;
+
+	@GetMapping
+	public List<CandleStick> getBalanceHistory(Session session,
+			@RequestParam(defaultValue = "hour") String interval,
+			@RequestParam(defaultValue = "24") int intervals) {
+		TimeInterval timeInterval;
+		try {
+			timeInterval = TimeInterval.valueOf(interval.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new InvalidInputException();
+		}
+		return session.getBalanceHistory(timeInterval, Math.min(Math.max(intervals, 1), MAX_INTERVALS),
+				Instant.now().getEpochSecond());
+	}
+}
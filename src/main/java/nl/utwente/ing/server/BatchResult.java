@@ -0,0 +1,45 @@
+package nl.utwente.ing.server;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The outcome of one item of a batch: the id of the created object or the reason it was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+	private final int index;
+	private final int status;
+	private final Integer id;
+	private final String error;
+
+	private BatchResult(int index, int status, Integer id, String error) {
+		this.index = index;
+		this.status = status;
+		this.id = id;
+		this.error = error;
+	}
+
+	static BatchResult created(int index, int id) {
+		return new BatchResult(index, 201, id, null);
+	}
+
+	static BatchResult rejected(int index, int status, String error) {
+		return new BatchResult(index, status, null, error);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public String getError() {
+		return error;
+	}
+}
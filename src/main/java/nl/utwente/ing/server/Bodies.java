@@ -0,0 +1,187 @@
+package nl.utwente.ing.server;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import nl.utwente.ing.model.Category;
+import nl.utwente.ing.model.CategoryRule;
+import nl.utwente.ing.model.MessageRule;
+import nl.utwente.ing.model.MessageType;
+import nl.utwente.ing.model.PaymentRequest;
+import nl.utwente.ing.model.SavingGoal;
+import nl.utwente.ing.model.Transaction;
+import nl.utwente.ing.model.TransactionType;
+
+/**
+ * Converts request bodies to model objects, any missing or invalid field results in an {@link InvalidInputException}.
+ */
+final class Bodies {
+	private Bodies() {
+
+	}
+
+	static JSONObject parse(String body) {
+		if (body == null || body.trim().isEmpty()) {
+			throw new InvalidInputException();
+		}
+		try {
+			return new JSONObject(body);
+		} catch (JSONException e) {
+			throw new InvalidInputException();
+		}
+	}
+
+	static Transaction transaction(String body) {
+		return transaction(parse(body));
+	}
+
+	static Transaction transaction(JSONObject json) {
+		if (json == null) {
+			throw new InvalidInputException();
+		}
+		Transaction transaction = new Transaction();
+		transaction.setDate(json.optString("date", null));
+		transaction.setAmount(number(json, "amount"));
+		transaction.setExternalIBAN(json.optString("externalIBAN", null));
+		transaction.setDescription(json.optString("description", ""));
+		transaction.setType(type(json));
+		if (!transaction.validTransaction()) {
+			throw new InvalidInputException();
+		}
+		return transaction;
+	}
+
+	/**
+	 * Splits a batch into its items, the batch is either a JSON array or one JSON object per line (NDJSON).
+	 * @return the items in order, null for an item that is not a JSON object
+	 */
+	static List<JSONObject> batch(String body) {
+		if (body == null || body.trim().isEmpty()) {
+			throw new InvalidInputException();
+		}
+		String trimmed = body.trim();
+		List<JSONObject> items = new ArrayList<>();
+		if (trimmed.startsWith("[")) {
+			JSONArray array;
+			try {
+				array = new JSONArray(trimmed);
+			} catch (JSONException e) {
+				throw new InvalidInputException();
+			}
+			for (int i = 0; i < array.length(); i++) {
+				items.add(array.optJSONObject(i));
+			}
+			return items;
+		}
+		for (String line : trimmed.split("\r?\n")) {
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			try {
+				items.add(new JSONObject(line));
+			} catch (JSONException e) {
+				items.add(null);
+			}
+		}
+		return items;
+	}
+
+	static Category category(String body) {
+		Category category = new Category();
+		category.setName(parse(body).optString("name", null));
+		if (!category.validCategory()) {
+			throw new InvalidInputException();
+		}
+		return category;
+	}
+
+	static int categoryId(String body) {
+		return (int) number(parse(body), "category_id");
+	}
+
+	static CategoryRule categoryRule(String body) {
+		JSONObject json = parse(body);
+		CategoryRule categoryRule = new CategoryRule();
+		categoryRule.setDescription(json.optString("description", null));
+		categoryRule.setiBAN(json.optString("iBAN", null));
+		categoryRule.setType(type(json));
+		categoryRule.setCategory_id(json.optInt("category_id"));
+		categoryRule.setApplyOnHistory(json.optBoolean("applyOnHistory"));
+		if (!categoryRule.validCategoryRule()) {
+			throw new InvalidInputException();
+		}
+		return categoryRule;
+	}
+
+	static SavingGoal savingGoal(String body) {
+		JSONObject json = parse(body);
+		SavingGoal savingGoal = new SavingGoal();
+		savingGoal.setName(json.optString("name", null));
+		savingGoal.setGoal(number(json, "goal"));
+		savingGoal.setSavePerMonth(number(json, "savePerMonth"));
+		savingGoal.setMinBalanceRequired(json.has("minBalanceRequired") ? number(json, "minBalanceRequired") : 0);
+		if (!savingGoal.validSavingGoal() || savingGoal.getSavePerMonth() <= 0) {
+			throw new InvalidInputException();
+		}
+		return savingGoal;
+	}
+
+	static PaymentRequest paymentRequest(String body) {
+		JSONObject json = parse(body);
+		PaymentRequest paymentRequest = new PaymentRequest();
+		paymentRequest.setDescription(json.optString("description", null));
+		paymentRequest.setDue_date(json.optString("due_date", null));
+		paymentRequest.setAmount(number(json, "amount"));
+		paymentRequest.setNumber_of_requests((int) number(json, "number_of_requests"));
+		if (!paymentRequest.validPaymentRequest()) {
+			throw new InvalidInputException();
+		}
+		try {
+			Dates.epochSecond(paymentRequest.getDue_date());
+		} catch (DateTimeParseException e) {
+			throw new InvalidInputException();
+		}
+		return paymentRequest;
+	}
+
+	static MessageRule messageRule(String body) {
+		JSONObject json = parse(body);
+		MessageRule messageRule = new MessageRule();
+		try {
+			messageRule.setType(MessageType.valueOf(json.getString("type")));
+		} catch (JSONException | IllegalArgumentException e) {
+			throw new InvalidInputException();
+		}
+		messageRule.setValue(number(json, "value"));
+		messageRule.setCategory_id((int) number(json, "category_id"));
+		if (!messageRule.validMessageRule()) {
+			throw new InvalidInputException();
+		}
+		return messageRule;
+	}
+
+	private static double number(JSONObject json, String key) {
+		try {
+			return json.getDouble(key);
+		} catch (JSONException e) {
+			throw new InvalidInputException();
+		}
+	}
+
+	private static TransactionType type(JSONObject json) {
+		String type = json.optString("type", null);
+		if (type == null) {
+			return null;
+		}
+		try {
+			return TransactionType.valueOf(type);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidInputException();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import nl.utwente.ing.model.Category;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/categories")
+public class CategoryController {
+	@GetMapping
+	public List<Category> getCategories(Session session, WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.CATEGORIES)) {
+			return null;
+		}
+		return session.getCategories();
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Category postCategory(Session session, @RequestBody(required = false) String body) {
+		return session.addCategory(Bodies.category(body));
+	}
+
+	@GetMapping("/{id}")
+	public Category getCategory(Session session, @PathVariable int id) {
+		return session.getCategory(id);
+	}
+
+	@PutMapping("/{id}")
+	public Category putCategory(Session session, @PathVariable int id, @RequestBody(required = false) String body) {
+		session.getCategory(id);
+		return session.updateCategory(id, Bodies.category(body));
+	}
+
+	@DeleteMapping("/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void deleteCategory(Session session, @PathVariable int id) {
+		session.deleteCategory(id);
+	}
+}
@@ -0,0 +1,53 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import nl.utwente.ing.model.CategoryRule;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/categoryRules")
+public class CategoryRuleController {
+	@GetMapping
+	public List<CategoryRule> getCategoryRules(Session session, WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.CATEGORY_RULES)) {
+			return null;
+		}
+		return session.getCategoryRules();
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public CategoryRule postCategoryRule(Session session, @RequestBody(required = false) String body) {
+		return session.addCategoryRule(Bodies.categoryRule(body));
+	}
+
+	@GetMapping("/{id}")
+	public CategoryRule getCategoryRule(Session session, @PathVariable int id) {
+		return session.getCategoryRule(id);
+	}
+
+	@PutMapping("/{id}")
+	public CategoryRule putCategoryRule(Session session, @PathVariable int id,
+			@RequestBody(required = false) String body) {
+		session.getCategoryRule(id);
+		return session.updateCategoryRule(id, Bodies.categoryRule(body));
+	}
+
+	@DeleteMapping("/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void deleteCategoryRule(Session session, @PathVariable int id) {
+		session.deleteCategoryRule(id);
+	}
+}
@@ -0,0 +1,20 @@
+package nl.utwente.ing.server;
+
+import nl.utwente.ing.model.LazyDate;
+
+/**
+ * Conversion of the date strings of the API to epoch seconds, with the parser of the model.
+ */
+final class Dates {
+	private Dates() {
+
+	}
+
+	/**
+	 * Parses an ISO date-time at its offset, dates without an offset are taken as UTC.
+	 * @throws java.time.format.DateTimeParseException if the date is not a valid ISO date-time
+	 */
+	static long epochSecond(String date) {
+		return LazyDate.parse(date);
+	}
+}
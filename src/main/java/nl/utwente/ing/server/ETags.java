@@ -0,0 +1,25 @@
+package nl.utwente.ing.server;
+
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Conditional GETs on the list endpoints. The ETag of a list is the version of its collection in the session,
+ * together with the start of the server so a tag of an earlier run never matches.
+ */
+final class ETags {
+	private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+	private ETags() {
+	}
+
+	/**
+	 * Sets the ETag of a collection on the response and checks it against the If-None-Match header.
+	 * It must be called before the list is read: a change in between then leaves the list with an older tag,
+	 * so the client gets the list again on its next request.
+	 * @return whether the client has the current list, the request is then answered with 304 Not Modified
+	 */
+	static boolean notModified(WebRequest request, Session session, Session.Collection collection) {
+		return request.checkNotModified(
+				"\"" + INSTANCE + "-" + session.getId() + "-" + session.getVersion(collection) + "\"");
+	}
+}
@@ -0,0 +1,86 @@
+package nl.utwente.ing.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nl.utwente.ing.model.Category;
+import nl.utwente.ing.model.CategoryRule;
+import nl.utwente.ing.model.CategoryRuleMatcher;
+import nl.utwente.ing.model.Transaction;
+
+/**
+ * Applies a category rule to the transaction history of a session.
+ * The history is split into chunks that are matched against the rule in parallel by a shared pool of
+ * workers. The matches of all chunks are collected first and written back in one pass, so the
+ * transactions are only modified after every chunk has been evaluated. Small histories are matched on the
+ * calling thread.
+ * The caller must hold the lock of the session; the workers only read the transactions.
+ */
+final class HistoryCategorizer {
+	static final int CHUNK_SIZE = 8192;
+
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "history-categorizer");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	private HistoryCategorizer() {
+	}
+
+	/**
+	 * @param categoryRule the rule to apply
+	 * @param category the category of the rule
+	 * @param history the transactions of the session
+	 * @return the transactions whose category changed
+	 */
+	static List<Transaction> apply(CategoryRule categoryRule, Category category, List<Transaction> history) {
+		List<Transaction> matched = history.size() <= CHUNK_SIZE
+				? match(categoryRule, history) : matchInParallel(categoryRule, history);
+		List<Transaction> changed = new ArrayList<>();
+		for (Transaction transaction : matched) {
+			if (transaction.getCategory() != category) {
+				transaction.setCategory(category);
+				changed.add(transaction);
+			}
+		}
+		return changed;
+	}
+
+	private static List<Transaction> matchInParallel(CategoryRule categoryRule, List<Transaction> history) {
+		List<Future<List<Transaction>>> chunks = new ArrayList<>();
+		for (int from = 0; from < history.size(); from += CHUNK_SIZE) {
+			List<Transaction> chunk = history.subList(from, Math.min(from + CHUNK_SIZE, history.size()));
+			chunks.add(WORKERS.submit(() -> match(categoryRule, chunk)));
+		}
+		List<Transaction> matched = new ArrayList<>();
+		try {
+			for (Future<List<Transaction>> chunk : chunks) {
+				matched.addAll(chunk.get());
+			}
+		} catch (InterruptedException e) {
+			chunks.forEach(chunk -> chunk.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while applying category rule " + categoryRule.getId(), e);
+		} catch (ExecutionException e) {
+			chunks.forEach(chunk -> chunk.cancel(true));
+			throw new IllegalStateException("Applying category rule " + categoryRule.getId() + " failed", e.getCause());
+		}
+		return matched;
+	}
+
+	private static List<Transaction> match(CategoryRule categoryRule, List<Transaction> chunk) {
+		List<Transaction> matched = new ArrayList<>();
+		for (Transaction transaction : chunk) {
+			if (CategoryRuleMatcher.matches(categoryRule, transaction)) {
+				matched.add(transaction);
+			}
+		}
+		return matched;
+	}
+}
@@ -0,0 +1,12 @@
+package nl.utwente.ing.server;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The request body is missing or does not describe a valid object.
+ */
+@ResponseStatus(value = HttpStatus.METHOD_NOT_ALLOWED, reason = "Invalid input given")
+public class InvalidInputException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+}
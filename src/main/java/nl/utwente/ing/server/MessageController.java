@@ -0,0 +1,55 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import nl.utwente.ing.model.Message;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/messages")
+public class MessageController {
+	// Clients reconnect with the Last-Event-ID header after a stream times out
+	@Value("${messages.stream.timeout:300000}")
+	private long streamTimeout;
+
+	@GetMapping
+	public List<Message> getMessages(Session session, WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.MESSAGES)) {
+			return null;
+		}
+		return session.getUnreadMessages();
+	}
+
+	/**
+	 * Streams every message of the session as a server-sent event, first the existing messages and then the
+	 * new ones as they are added. A client that reconnects with the Last-Event-ID header only receives the
+	 * messages after that id.
+	 */
+	@GetMapping("/stream")
+	public SseEmitter streamMessages(Session session,
+			@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+		int lastMessageId = 0;
+		if (lastEventId != null && !lastEventId.trim().isEmpty()) {
+			try {
+				lastMessageId = Integer.parseInt(lastEventId.trim());
+			} catch (NumberFormatException e) {
+				throw new InvalidInputException();
+			}
+		}
+		return MessageStream.open(session, lastMessageId, streamTimeout);
+	}
+
+	@PutMapping("/{id}")
+	public Message readMessage(Session session, @PathVariable int id) {
+		return session.readMessage(id);
+	}
+}
@@ -0,0 +1,32 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import nl.utwente.ing.model.MessageRule;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/messageRules")
+public class MessageRuleController {
+	@GetMapping
+	public List<MessageRule> getMessageRules(Session session, WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.MESSAGE_RULES)) {
+			return null;
+		}
+		return session.getMessageRules();
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public MessageRule postMessageRule(Session session, @RequestBody(required = false) String body) {
+		return session.addMessageRule(Bodies.messageRule(body));
+	}
+}
@@ -0,0 +1,92 @@
+package nl.utwente.ing.server;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import nl.utwente.ing.model.Message;
+
+/**
+ * Pushes the messages of a session to one client as server-sent events, with the id of the message as event id.
+ * The session hands over messages while it holds its lock, so they are only queued there and written to the
+ * client by a shared pool of senders. At most one sender works on a stream at a time, which keeps the events
+ * in order. A stream that cannot be written to is completed and unsubscribes from its session.
+ */
+final class MessageStream implements Consumer<Message> {
+	private static final ExecutorService SENDERS = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "message-stream");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Session session;
+	private final SseEmitter emitter;
+	private final Queue<Message> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean sending = new AtomicBoolean();
+	private volatile boolean closed;
+
+	/**
+	 * Subscribes a new stream to the messages of a session.
+	 * @param session the session
+	 * @param lastEventId the id of the last message the client received, the stream starts after it
+	 * @param timeout the time in milliseconds after which the client has to reconnect
+	 * @return the emitter that answers the request
+	 */
+	static SseEmitter open(Session session, int lastEventId, long timeout) {
+		SseEmitter emitter = new SseEmitter(timeout);
+		MessageStream stream = new MessageStream(session, emitter);
+		emitter.onCompletion(stream::close);
+		emitter.onTimeout(stream::close);
+		session.subscribe(stream, lastEventId);
+		return emitter;
+	}
+
+	private MessageStream(Session session, SseEmitter emitter) {
+		this.session = session;
+		this.emitter = emitter;
+	}
+
+	@Override
+	public void accept(Message message) {
+		pending.add(message);
+		if (sending.compareAndSet(false, true)) {
+			SENDERS.execute(this::send);
+		}
+	}
+
+	private void send() {
+		try {
+			for (Message message = pending.poll(); message != null && !closed; message = pending.poll()) {
+				emitter.send(SseEmitter.event()
+						.id(String.valueOf(message.getId()))
+						.name("message")
+						.data(message, MediaType.APPLICATION_JSON));
+			}
+		} catch (IOException | IllegalStateException e) {
+			// The client is gone or the request already ended
+			close();
+			emitter.completeWithError(e);
+		} finally {
+			sending.set(false);
+		}
+		// A message may have been queued after the last poll but before the flag was cleared
+		if (!pending.isEmpty() && !closed && sending.compareAndSet(false, true)) {
+			SENDERS.execute(this::send);
+		}
+	}
+
+	private void close() {
+		if (!closed) {
+			closed = true;
+			session.unsubscribe(this);
+			pending.clear();
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package nl.utwente.ing.server;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The requested object does not exist in the session.
+ */
+@ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Resource not found")
+public class NotFoundException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+}
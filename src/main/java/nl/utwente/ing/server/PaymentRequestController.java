@@ -0,0 +1,32 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import nl.utwente.ing.model.PaymentRequest;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/paymentRequests")
+public class PaymentRequestController {
+	@GetMapping
+	public List<PaymentRequest> getPaymentRequests(Session session, WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.PAYMENT_REQUESTS)) {
+			return null;
+		}
+		return session.getPaymentRequests();
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public PaymentRequest postPaymentRequest(Session session, @RequestBody(required = false) String body) {
+		return session.addPaymentRequest(Bodies.paymentRequest(body));
+	}
+}
@@ -0,0 +1,33 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * In-memory reference implementation of the API under test, so the test suite and the load generator
+ * can run without a deployed backend.
+ * Start it with java nl.utwente.ing.server.ReferenceServer, the port is set with the server.port property
+ * (default 8080) and all endpoints are served under /api/v1.
+ * Every session keeps its own state and is locked on its own, so requests of different sessions never contend.
+ */
+@SpringBootApplication
+public class ReferenceServer extends WebMvcConfigurerAdapter {
+	public static final String BASE_PATH = "/api/v1";
+
+	@Autowired
+	private Sessions sessions;
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReferenceServer.class, args);
+	}
+
+	@Override
+	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
+		argumentResolvers.add(new SessionArgumentResolver(sessions));
+	}
+}
@@ -0,0 +1,40 @@
+package nl.utwente.ing.server;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import nl.utwente.ing.model.SavingGoal;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/savingGoals")
+public class SavingGoalController {
+	@GetMapping
+	public List<SavingGoal> getSavingGoals(Session session, WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.SAVING_GOALS)) {
+			return null;
+		}
+		return session.getSavingGoals();
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public SavingGoal postSavingGoal(Session session, @RequestBody(required = false) String body) {
+		return session.addSavingGoal(Bodies.savingGoal(body));
+	}
+
+	@DeleteMapping("/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void deleteSavingGoal(Session session, @PathVariable int id) {
+		session.deleteSavingGoal(id);
+	}
+}
@@ -0,0 +1,522 @@
+package nl.utwente.ing.server;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import nl.utwente.ing.model.CandleStick;
+import nl.utwente.ing.model.CandleStickAggregator;
+import nl.utwente.ing.model.Category;
+import nl.utwente.ing.model.CategoryRule;
+import nl.utwente.ing.model.CategoryRuleMatcher;
+import nl.utwente.ing.model.Message;
+import nl.utwente.ing.model.MessageRule;
+import nl.utwente.ing.model.MessageType;
+import nl.utwente.ing.model.PaymentRequest;
+import nl.utwente.ing.model.PaymentRequestIndex;
+import nl.utwente.ing.model.SavingGoal;
+import nl.utwente.ing.model.SavingGoalEngine;
+import nl.utwente.ing.model.ThresholdDetector;
+import nl.utwente.ing.model.TimeInterval;
+import nl.utwente.ing.model.Transaction;
+import nl.utwente.ing.model.TransactionType;
+
+/**
+ * The state of one session and the rules that act on it.
+ * All methods synchronize on the session, so the requests of one session are applied one by one
+ * while requests of different sessions run concurrently.
+ * Ids are assigned per collection as the lowest free id, starting at 1.
+ * Every collection has a version that changes whenever its list changes, which the list endpoints use as ETag.
+ */
+public class Session {
+	/**
+	 * The collections that have a list endpoint.
+	 */
+	public enum Collection {
+		TRANSACTIONS, CATEGORIES, CATEGORY_RULES, SAVING_GOALS, PAYMENT_REQUESTS, MESSAGES, MESSAGE_RULES
+	}
+
+	private final int id;
+	private final long[] versions = new long[Collection.values().length];
+	// The last id given out per collection that is never deleted from
+	private final int[] lastIds = new int[Collection.values().length];
+	private final NavigableMap<Integer, Transaction> transactions = new TreeMap<>();
+	private final Map<Integer, Long> transactionTimes = new HashMap<>();
+	private final NavigableMap<Integer, Category> categories = new TreeMap<>();
+	private final NavigableMap<Integer, CategoryRule> categoryRules = new TreeMap<>();
+	private final CategoryRuleMatcher categoryRuleMatcher = new CategoryRuleMatcher();
+	private final NavigableMap<Integer, SavingGoal> savingGoals = new TreeMap<>();
+	private final NavigableMap<Integer, PaymentRequest> paymentRequests = new TreeMap<>();
+	private final PaymentRequestIndex paymentRequestIndex = new PaymentRequestIndex();
+	// The transactions that are listed in a payment request, which shows them in full
+	private final Set<Transaction> paid = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final NavigableMap<Integer, Message> messages = new TreeMap<>();
+	private final NavigableMap<Integer, MessageRule> messageRules = new TreeMap<>();
+	// Receive every new message, e.g. to push it to a client
+	private final List<Consumer<Message>> subscribers = new ArrayList<>();
+	// All balance changes, including the money moved between the account and the saving goals
+	private final CandleStickAggregator balanceHistory = new CandleStickAggregator();
+	private final ThresholdDetector thresholdDetector = new ThresholdDetector(new ThresholdDetector.Listener() {
+		@Override
+		public void belowZero(long epochSecond) {
+			addMessage("Balance dropped below zero!", epochSecond, MessageType.warning);
+		}
+
+		@Override
+		public void newHigh(long epochSecond, double balance) {
+			addMessage("Your balance reached a new high of " + balance + "!", epochSecond, MessageType.info);
+		}
+
+		@Override
+		public void thresholdReached(MessageRule messageRule, long epochSecond) {
+			addMessage("Spending exceeded threshold of " + messageRule.getValue() + " on category with id "
+					+ messageRule.getCategory_id() + ".", epochSecond, messageRule.getType());
+		}
+	});
+
+	// Money moved to and from saving goals gets negative ids in the balance history
+	private long lastInternalId;
+	private final SavingGoalEngine savingGoalEngine = new SavingGoalEngine(new SavingGoalEngine.Listener() {
+		@Override
+		public void setAside(long epochSecond, double amount) {
+			transfer(-amount, epochSecond);
+			changed(Collection.SAVING_GOALS);
+		}
+
+		@Override
+		public void filled(SavingGoal savingGoal, long epochSecond) {
+			addMessage("Saving goal with id " + savingGoal.getId() + " has been filled!", epochSecond, MessageType.info);
+		}
+	});
+
+	public Session(int id) {
+		this.id = id;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return the version of a collection, which changes whenever its list changes
+	 */
+	public synchronized long getVersion(Collection collection) {
+		return versions[collection.ordinal()];
+	}
+
+	// ---- Transactions ----
+
+	public synchronized List<Transaction> getTransactions(int offset, int limit, Integer categoryId) {
+		List<Transaction> result = new ArrayList<>();
+		int skipped = 0;
+		for (Transaction transaction : transactions.values()) {
+			if (categoryId != null && transaction.CategoryID() != categoryId) {
+				continue;
+			}
+			if (skipped++ < offset) {
+				continue;
+			}
+			result.add(transaction);
+			if (result.size() == limit) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	public synchronized Transaction getTransaction(int transactionId) {
+		return find(transactions, transactionId);
+	}
+
+	/**
+	 * Adds a transaction and applies everything it triggers: saving goals for the months the clock moves past,
+	 * category rules, payment requests and messages.
+	 * @param transaction a valid transaction without id
+	 * @return the stored transaction
+	 */
+	public synchronized Transaction addTransaction(Transaction transaction) {
+		long time = Dates.epochSecond(transaction.getDate());
+		// Only transactions that do not go back in time are checked against the message rules
+		boolean inFuture = time >= savingGoalEngine.getClock();
+		savingGoalEngine.advance(time, balanceHistory.getBalance());
+
+		transaction.setId(freeId(transactions));
+		transaction.setCategory(matchCategory(transaction));
+		transactions.put(transaction.getId(), transaction);
+		transactionTimes.put(transaction.getId(), time);
+		changed(Collection.TRANSACTIONS);
+		book(transaction, time);
+		checkPaymentRequests(transaction, time);
+		if (inFuture) {
+			thresholdDetector.checkSpending(transaction, time);
+		}
+		return transaction;
+	}
+
+	/**
+	 * Adds transactions in order as if they were posted one by one, without other requests of the session
+	 * in between.
+	 * @param batch valid transactions without id, null items are skipped
+	 */
+	public synchronized void addTransactions(List<Transaction> batch) {
+		for (Transaction transaction : batch) {
+			if (transaction != null) {
+				addTransaction(transaction);
+			}
+		}
+	}
+
+	/**
+	 * Changes a transaction in place, so the payment requests it filled show the new values.
+	 */
+	public synchronized Transaction updateTransaction(int transactionId, Transaction update) {
+		Transaction transaction = find(transactions, transactionId);
+		long time = Dates.epochSecond(update.getDate());
+		transaction.setDate(update.getDate());
+		transaction.setAmount(update.getAmount());
+		transaction.setExternalIBAN(update.getExternalIBAN());
+		transaction.setDescription(update.getDescription());
+		transaction.setType(update.getType());
+		transactionTimes.put(transactionId, time);
+		transactionChanged(transaction);
+		balanceHistory.remove(transactionId);
+		balanceHistory.add(transactionId, time, signedAmount(transaction));
+		thresholdDetector.update(transaction, time);
+		return transaction;
+	}
+
+	public synchronized void deleteTransaction(int transactionId) {
+		Transaction transaction = find(transactions, transactionId);
+		transactions.remove(transactionId);
+		transactionTimes.remove(transactionId);
+		changed(Collection.TRANSACTIONS);
+		balanceHistory.remove(transaction.getId());
+		thresholdDetector.remove(transaction.getId());
+		if (paid.remove(transaction)) {
+			// A request that was filled stays filled, it only no longer lists the transaction
+			for (PaymentRequest paymentRequest : paymentRequests.values()) {
+				paymentRequest.getTransactions().removeIf(paidWith -> paidWith == transaction);
+			}
+			changed(Collection.PAYMENT_REQUESTS);
+		}
+	}
+
+	public synchronized Transaction assignCategory(int transactionId, int categoryId) {
+		Transaction transaction = find(transactions, transactionId);
+		Category category = find(categories, categoryId);
+		if (transaction.getCategory() != category) {
+			transaction.setCategory(category);
+			transactionChanged(transaction);
+			thresholdDetector.update(transaction, transactionTimes.get(transactionId));
+		}
+		return transaction;
+	}
+
+	// ---- Categories ----
+
+	public synchronized List<Category> getCategories() {
+		return new ArrayList<>(categories.values());
+	}
+
+	public synchronized Category getCategory(int categoryId) {
+		return find(categories, categoryId);
+	}
+
+	public synchronized Category addCategory(Category category) {
+		category.setId(freeId(categories));
+		categories.put(category.getId(), category);
+		changed(Collection.CATEGORIES);
+		return category;
+	}
+
+	public synchronized Category updateCategory(int categoryId, Category update) {
+		Category category = find(categories, categoryId);
+		category.setName(update.getName());
+		changed(Collection.CATEGORIES);
+		// Transactions show their category in full
+		for (Transaction transaction : transactions.values()) {
+			if (transaction.getCategory() == category) {
+				transactionChanged(transaction);
+			}
+		}
+		return category;
+	}
+
+	public synchronized void deleteCategory(int categoryId) {
+		Category category = find(categories, categoryId);
+		categories.remove(categoryId);
+		changed(Collection.CATEGORIES);
+		for (Transaction transaction : transactions.values()) {
+			if (transaction.getCategory() == category) {
+				transaction.setCategory(null);
+				transactionChanged(transaction);
+				thresholdDetector.update(transaction, transactionTimes.get(transaction.getId()));
+			}
+		}
+	}
+
+	// ---- Category rules ----
+
+	public synchronized List<CategoryRule> getCategoryRules() {
+		return new ArrayList<>(categoryRules.values());
+	}
+
+	public synchronized CategoryRule getCategoryRule(int categoryRuleId) {
+		return find(categoryRules, categoryRuleId);
+	}
+
+	public synchronized CategoryRule addCategoryRule(CategoryRule categoryRule) {
+		categoryRule.setId(freeId(categoryRules));
+		categoryRules.put(categoryRule.getId(), categoryRule);
+		changed(Collection.CATEGORY_RULES);
+		categoryRuleMatcher.add(categoryRule);
+		applyOnHistory(categoryRule);
+		return categoryRule;
+	}
+
+	public synchronized CategoryRule updateCategoryRule(int categoryRuleId, CategoryRule update) {
+		find(categoryRules, categoryRuleId);
+		update.setId(categoryRuleId);
+		categoryRules.put(categoryRuleId, update);
+		changed(Collection.CATEGORY_RULES);
+		categoryRuleMatcher.add(update);
+		applyOnHistory(update);
+		return update;
+	}
+
+	public synchronized void deleteCategoryRule(int categoryRuleId) {
+		find(categoryRules, categoryRuleId);
+		categoryRules.remove(categoryRuleId);
+		changed(Collection.CATEGORY_RULES);
+		categoryRuleMatcher.remove(categoryRuleId);
+	}
+
+	// ---- Saving goals ----
+
+	public synchronized List<SavingGoal> getSavingGoals() {
+		return new ArrayList<>(savingGoals.values());
+	}
+
+	public synchronized SavingGoal addSavingGoal(SavingGoal savingGoal) {
+		savingGoal.setId(freeId(savingGoals));
+		savingGoal.setBalance(0);
+		savingGoals.put(savingGoal.getId(), savingGoal);
+		changed(Collection.SAVING_GOALS);
+		savingGoalEngine.add(savingGoal);
+		return savingGoal;
+	}
+
+	/**
+	 * Deletes a saving goal, the money that was set aside for it returns to the account.
+	 */
+	public synchronized void deleteSavingGoal(int savingGoalId) {
+		SavingGoal savingGoal = find(savingGoals, savingGoalId);
+		savingGoals.remove(savingGoalId);
+		changed(Collection.SAVING_GOALS);
+		savingGoalEngine.remove(savingGoalId);
+		if (savingGoal.getBalance() > 0) {
+			long clock = savingGoalEngine.getClock();
+			transfer(savingGoal.getBalance(), clock == Long.MIN_VALUE ? Instant.now().getEpochSecond() : clock);
+		}
+	}
+
+	// ---- Payment requests ----
+
+	public synchronized List<PaymentRequest> getPaymentRequests() {
+		return new ArrayList<>(paymentRequests.values());
+	}
+
+	public synchronized PaymentRequest addPaymentRequest(PaymentRequest paymentRequest) {
+		paymentRequest.setId(nextId(Collection.PAYMENT_REQUESTS));
+		paymentRequest.setFilled(false);
+		paymentRequest.setTransactions(new ArrayList<>());
+		paymentRequests.put(paymentRequest.getId(), paymentRequest);
+		changed(Collection.PAYMENT_REQUESTS);
+		paymentRequestIndex.add(paymentRequest, Dates.epochSecond(paymentRequest.getDue_date()));
+		return paymentRequest;
+	}
+
+	// ---- Messages ----
+
+	public synchronized List<Message> getUnreadMessages() {
+		List<Message> result = new ArrayList<>();
+		for (Message message : messages.values()) {
+			if (!message.isRead()) {
+				result.add(message);
+			}
+		}
+		return result;
+	}
+
+	public synchronized Message readMessage(int messageId) {
+		Message message = find(messages, messageId);
+		if (!message.isRead()) {
+			message.setRead(true);
+			changed(Collection.MESSAGES);
+		}
+		return message;
+	}
+
+	/**
+	 * Hands every message after an id to a subscriber, followed by every new message until it unsubscribes.
+	 * The subscriber is called while the session is locked, so it must not block.
+	 * @param subscriber receives the messages in order of id
+	 * @param lastMessageId the id of the last message the subscriber already has, or 0 for all messages
+	 */
+	public synchronized void subscribe(Consumer<Message> subscriber, int lastMessageId) {
+		messages.tailMap(lastMessageId, false).values().forEach(subscriber);
+		subscribers.add(subscriber);
+	}
+
+	public synchronized void unsubscribe(Consumer<Message> subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	public synchronized List<MessageRule> getMessageRules() {
+		return new ArrayList<>(messageRules.values());
+	}
+
+	public synchronized MessageRule addMessageRule(MessageRule messageRule) {
+		messageRule.setId(nextId(Collection.MESSAGE_RULES));
+		messageRules.put(messageRule.getId(), messageRule);
+		changed(Collection.MESSAGE_RULES);
+		thresholdDetector.addMessageRule(messageRule);
+		return messageRule;
+	}
+
+	// ---- Balance history ----
+
+	/**
+	 * Computes the candlesticks of the last intervals, the last candlestick is the interval that contains now.
+	 * @param interval the length of one candlestick
+	 * @param intervals the number of candlesticks
+	 * @param now the current time in epoch seconds
+	 * @return the candlesticks, oldest first
+	 */
+	public synchronized List<CandleStick> getBalanceHistory(TimeInterval interval, int intervals, long now) {
+		return Arrays.asList(balanceHistory.getCandleSticks(interval, now, intervals));
+	}
+
+	// ---- Rules ----
+
+	private void transfer(double amount, long time) {
+		balanceHistory.add(--lastInternalId, time, amount);
+		thresholdDetector.transfer(amount);
+	}
+
+	private void book(Transaction transaction, long time) {
+		balanceHistory.add(transaction.getId(), time, signedAmount(transaction));
+		thresholdDetector.add(transaction, time);
+	}
+
+	private Category matchCategory(Transaction transaction) {
+		CategoryRule categoryRule = categoryRuleMatcher.match(transaction,
+				rule -> categories.containsKey(rule.getCategory_id()));
+		return categoryRule == null ? null : categories.get(categoryRule.getCategory_id());
+	}
+
+	private void applyOnHistory(CategoryRule categoryRule) {
+		Category category = categories.get(categoryRule.getCategory_id());
+		if (!categoryRule.isApplyOnHistory() || category == null) {
+			return;
+		}
+		for (Transaction transaction : HistoryCategorizer.apply(categoryRule, category,
+				new ArrayList<>(transactions.values()))) {
+			transactionChanged(transaction);
+			thresholdDetector.update(transaction, transactionTimes.get(transaction.getId()));
+		}
+	}
+
+	/**
+	 * Warns about open payment requests that passed their due date and fills the open request with the
+	 * same amount that is due first.
+	 */
+	private void checkPaymentRequests(Transaction transaction, long time) {
+		for (PaymentRequest paymentRequest : paymentRequestIndex.expire(time)) {
+			addMessage("Payment request with id " + paymentRequest.getId() + " has not been filled on time!",
+					time, MessageType.warning);
+		}
+		if (transaction.getType() != TransactionType.deposit) {
+			return;
+		}
+		PaymentRequest paymentRequest = paymentRequestIndex.fill(transaction, time);
+		if (paymentRequest != null) {
+			paid.add(transaction);
+			changed(Collection.PAYMENT_REQUESTS);
+		}
+		if (paymentRequest != null && paymentRequest.isFilled()) {
+			addMessage("Payment request with id " + paymentRequest.getId() + " filled!", time, MessageType.info);
+		}
+	}
+
+	private void addMessage(String text, long time, MessageType type) {
+		Message message = new Message(nextId(Collection.MESSAGES), text, time, false, type.toString());
+		messages.put(message.getId(), message);
+		changed(Collection.MESSAGES);
+		for (Consumer<Message> subscriber : subscribers) {
+			subscriber.accept(message);
+		}
+	}
+
+	// ---- Helpers ----
+
+	private void changed(Collection collection) {
+		versions[collection.ordinal()]++;
+	}
+
+	private void transactionChanged(Transaction transaction) {
+		changed(Collection.TRANSACTIONS);
+		if (paid.contains(transaction)) {
+			changed(Collection.PAYMENT_REQUESTS);
+		}
+	}
+
+	/**
+	 * Ids for messages, payment requests and message rules, which are never deleted: they only count up, so an
+	 * id such as the Last-Event-ID of the message stream always names the same object.
+	 */
+	private int nextId(Collection collection) {
+		return ++lastIds[collection.ordinal()];
+	}
+
+	/**
+	 * Ids for the collections that objects are deleted from. The API gives a new object the id of a deleted one
+	 * (the delete tests add an object back and expect it in the old place), so this takes the lowest free id.
+	 * A deleted transaction is also taken out of the payment requests it paid, so they never list the
+	 * transaction that takes its id.
+	 */
+	private static <T> int freeId(NavigableMap<Integer, T> collection) {
+		if (collection.isEmpty() || collection.lastKey() == collection.size()) {
+			return collection.size() + 1;
+		}
+		int expected = 1;
+		for (int objectId : collection.keySet()) {
+			if (objectId != expected) {
+				return expected;
+			}
+			expected++;
+		}
+		return expected;
+	}
+
+	private static <T> T find(Map<Integer, T> collection, int objectId) {
+		T object = collection.get(objectId);
+		if (object == null) {
+			throw new NotFoundException();
+		}
+		return object;
+	}
+
+	private static double signedAmount(Transaction transaction) {
+		return transaction.getType() == TransactionType.deposit ? transaction.getAmount() : -transaction.getAmount();
+	}
+}
@@ -0,0 +1,29 @@
+package nl.utwente.ing.server;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link Session} arguments of controller methods from the X-session-ID header or the session_id parameter.
+ */
+public class SessionArgumentResolver implements HandlerMethodArgumentResolver {
+	private final Sessions sessions;
+
+	public SessionArgumentResolver(Sessions sessions) {
+		this.sessions = sessions;
+	}
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return Session.class.equals(parameter.getParameterType());
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+		return sessions.resolve(webRequest.getHeader("X-session-ID"), webRequest.getParameter("session_id"));
+	}
+}
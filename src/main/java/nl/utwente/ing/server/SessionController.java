@@ -0,0 +1,24 @@
+package nl.utwente.ing.server;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/sessions")
+public class SessionController {
+	@Autowired
+	private Sessions sessions;
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Map<String, Integer> createSession() {
+		return Collections.singletonMap("id", sessions.create().getId());
+	}
+}
@@ -0,0 +1,49 @@
+package nl.utwente.ing.server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * All sessions of the server, kept in memory for the lifetime of the process.
+ */
+@Component
+public class Sessions {
+	private final ConcurrentMap<Integer, Session> sessions = new ConcurrentHashMap<>();
+	private final AtomicInteger lastId = new AtomicInteger();
+
+	public Session create() {
+		Session session = new Session(lastId.incrementAndGet());
+		sessions.put(session.getId(), session);
+		return session;
+	}
+
+	/**
+	 * Looks up the session of a request, which can be given as header, as parameter or as both.
+	 * @param header the value of the X-session-ID header, or null
+	 * @param parameter the value of the session_id parameter, or null
+	 * @return the session
+	 * @throws UnauthorizedException if no session is given, the two values differ or the session does not exist
+	 */
+	public Session resolve(String header, String parameter) {
+		if (header != null && parameter != null && !header.equals(parameter)) {
+			throw new UnauthorizedException();
+		}
+		String id = header != null ? header : parameter;
+		if (id == null) {
+			throw new UnauthorizedException();
+		}
+		Session session;
+		try {
+			session = sessions.get(Integer.parseInt(id.trim()));
+		} catch (NumberFormatException e) {
+			throw new UnauthorizedException();
+		}
+		if (session == null) {
+			throw new UnauthorizedException();
+		}
+		return session;
+	}
+}
@@ -0,0 +1,102 @@
+package nl.utwente.ing.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import nl.utwente.ing.model.Transaction;
+
+@RestController
+@RequestMapping(ReferenceServer.BASE_PATH + "/transactions")
+public class TransactionController {
+	@GetMapping
+	public List<Transaction> getTransactions(Session session,
+			@RequestParam(defaultValue = "0") int offset,
+			@RequestParam(defaultValue = "20") int limit,
+			@RequestParam(required = false) Integer category,
+			WebRequest request) {
+		if (ETags.notModified(request, session, Session.Collection.TRANSACTIONS)) {
+			return null;
+		}
+		return session.getTransactions(Math.max(offset, 0), Math.max(limit, 1), category);
+	}
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Transaction postTransaction(Session session, @RequestBody(required = false) String body) {
+		return session.addTransaction(Bodies.transaction(body));
+	}
+
+	/**
+	 * Adds a batch of transactions in order as if they were posted one by one.
+	 * Invalid items are rejected without affecting the other items.
+	 * @return the result of every item, with 201 if all items were created and 207 otherwise
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<List<BatchResult>> postTransactions(Session session,
+			@RequestBody(required = false) String body) {
+		List<JSONObject> items = Bodies.batch(body);
+		List<Transaction> transactions = new ArrayList<>(items.size());
+		for (JSONObject item : items) {
+			try {
+				transactions.add(Bodies.transaction(item));
+			} catch (InvalidInputException e) {
+				transactions.add(null);
+			}
+		}
+		session.addTransactions(transactions);
+
+		List<BatchResult> results = new ArrayList<>(transactions.size());
+		boolean created = true;
+		for (int i = 0; i < transactions.size(); i++) {
+			Transaction transaction = transactions.get(i);
+			if (transaction == null) {
+				results.add(BatchResult.rejected(i, HttpStatus.METHOD_NOT_ALLOWED.value(), "Invalid input given"));
+				created = false;
+			} else {
+				results.add(BatchResult.created(i, transaction.getId()));
+			}
+		}
+		return new ResponseEntity<>(results, created ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+	}
+
+	@GetMapping("/{id}")
+	public Transaction getTransaction(Session session, @PathVariable int id) {
+		return session.getTransaction(id);
+	}
+
+	@PutMapping("/{id}")
+	public Transaction putTransaction(Session session, @PathVariable int id,
+			@RequestBody(required = false) String body) {
+		// Look the transaction up first, a missing transaction takes precedence over invalid input
+		session.getTransaction(id);
+		return session.updateTransaction(id, Bodies.transaction(body));
+	}
+
+	@DeleteMapping("/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void deleteTransaction(Session session, @PathVariable int id) {
+		session.deleteTransaction(id);
+	}
+
+	@PatchMapping("/{id}/category")
+	public Transaction patchCategory(Session session, @PathVariable int id,
+			@RequestBody(required = false) String body) {
+		return session.assignCategory(id, Bodies.categoryId(body));
+	}
+}
@@ -0,0 +1,12 @@
+package nl.utwente.ing.server;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The session id is missing, unknown or given twice with different values.
+ */
+@ResponseStatus(value = HttpStatus.UNAUTHORIZED, reason = "Session ID is missing or invalid")
+public class UnauthorizedException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,572 @@
+package nl.utwente.ing.testsuite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.InterruptedByTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseImpl;
+import io.restassured.response.Response;
+
+/**
+ * A non-blocking transport for the requests of the test suite. RestAssured blocks a thread for every request
+ * in flight; here requests are written and read by a few threads with asynchronous sockets, so one JVM can
+ * keep tens of thousands of requests in flight. The responses are RestAssured responses, and the helpers run
+ * the usual assertions when the response arrives:
+ * <pre>
+ * CompletableFuture&lt;Response&gt; flow = AsyncTestClient.getNewSession()
+ *         .thenCompose(session -&gt; AsyncTestClient.postObject(category, "categories", session));
+ * AsyncTestClient.await(flow).jsonPath().getInt("id");
+ * </pre>
+ * Requests are sent over HTTP/1.1 to the API location of {@link TestClient}, on connections that are kept
+ * alive and reused. Requests beyond the maximum number of connections wait until a connection is free.
+ * Dependent stages run on the threads of the transport and must not block. The latency of every request, from
+ * the moment it is written to a connection, is recorded in the {@link TestClient#getStatistics() statistics} of
+ * the suite. The time a request waits for a connection is recorded apart, see {@link #getQueueLatency()}.
+ * Configured with the following system properties:
+ * <ul>
+ * <li>async.maxConnections: connections to the server (default 1024)</li>
+ * <li>async.threads: threads that complete the requests (default the number of processors)</li>
+ * <li>async.socketTimeout: milliseconds to wait for data (default 60000)</li>
+ * </ul>
+ */
+public final class AsyncTestClient {
+	private static final int MAX_CONNECTIONS = Integer.getInteger("async.maxConnections", 1024);
+	private static final int THREADS = Integer.getInteger("async.threads", Runtime.getRuntime().availableProcessors());
+	private static final long SOCKET_TIMEOUT = Long.getLong("async.socketTimeout", 60000);
+	// A connection that grew its buffer larger than this for a large response drops it when it is reused
+	private static final int MAX_BUFFER = 1 << 16;
+	private static final byte[] CRLF = {'\r', '\n'};
+	private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+	private static final URL LOCATION = TestClient.url("");
+	private static final InetSocketAddress ADDRESS = new InetSocketAddress(LOCATION.getHost(), LOCATION.getPort());
+	private static final AsynchronousChannelGroup GROUP = createGroup();
+	private static final LatencyHistogram queueLatency = new LatencyHistogram();
+
+	// Guards the connections below
+	private static final Object LOCK = new Object();
+	// The idle connections, the most recently used first
+	private static final Deque<Connection> idle = new ArrayDeque<>();
+	private static final Queue<Exchange> waiting = new ArrayDeque<>();
+	private static int open;
+
+	private AsyncTestClient() {
+
+	}
+
+	/**
+	 * Sends a request.
+	 * @param method the HTTP method
+	 * @param path the path relative to the base path, including the query
+	 * @param sessionId the session to send in the X-session-ID header, or null
+	 * @param body the JSON body, or null
+	 * @return the response, or a failed future if no response was received
+	 */
+	public static CompletableFuture<Response> send(String method, String path, String sessionId, String body) {
+		StringBuilder head = new StringBuilder(256)
+				.append(method).append(' ').append(LOCATION.getPath()).append(path).append(" HTTP/1.1\r\n")
+				.append("Host: ").append(LOCATION.getHost()).append(':').append(ADDRESS.getPort()).append("\r\n")
+				.append("Accept: */*\r\n");
+		if (sessionId != null) {
+			head.append("X-session-ID: ").append(sessionId).append("\r\n");
+		}
+		byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+		if (body != null || !method.equals("GET") && !method.equals("DELETE")) {
+			head.append("Content-Type: application/json\r\n")
+					.append("Content-Length: ").append(content.length).append("\r\n");
+		}
+		byte[] start = head.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+		byte[] request = Arrays.copyOf(start, start.length + content.length);
+		System.arraycopy(content, 0, request, start.length, content.length);
+
+		Exchange exchange = new Exchange(method, EndpointStatistics.normalize(method, path, null), request);
+		dispatch(exchange);
+		return exchange.future;
+	}
+
+	public static CompletableFuture<Response> get(String path, String sessionId) {
+		return send("GET", path, sessionId, null);
+	}
+
+	public static CompletableFuture<Response> post(String path, String sessionId, String body) {
+		return send("POST", path, sessionId, body);
+	}
+
+	/**
+	 * Creates a session, like the getNewSession helper of the test classes.
+	 * @return the id of the session
+	 */
+	public static CompletableFuture<String> getNewSession() {
+		return post("/sessions", null, null).thenApply(response -> response.
+			then().
+				contentType(ContentType.JSON).
+			extract().
+				response().jsonPath().getString("id"));
+	}
+
+	/**
+	 * Posts an object, like the postObject helper of the test classes.
+	 * @return the response, or a future that fails with an AssertionError if the status is not 201
+	 */
+	public static CompletableFuture<Response> postObject(JSONObject object, String uri, String session) {
+		return post("/" + uri, session, object.toString()).thenApply(response -> {
+			response.then().
+				assertThat().statusCode(201);
+			return response;
+		});
+	}
+
+	/**
+	 * Waits for a future and throws what it failed with, so a failed assertion fails the test as usual.
+	 */
+	public static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the time from sending a request until it is written to a connection, which includes opening the
+	 * connection or waiting for one to become free
+	 */
+	public static LatencyHistogram getQueueLatency() {
+		return queueLatency;
+	}
+
+	/**
+	 * @return the number of connections to the server, idle or in use
+	 */
+	public static int getOpenConnections() {
+		synchronized (LOCK) {
+			return open;
+		}
+	}
+
+	private static AsynchronousChannelGroup createGroup() {
+		try {
+			return AsynchronousChannelGroup.withFixedThreadPool(THREADS, task -> {
+				Thread thread = new Thread(task, "async-test-client");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot start the threads of the async client", e);
+		}
+	}
+
+	/**
+	 * Sends a request on an idle connection, on a new connection, or after a request that is in flight.
+	 */
+	private static void dispatch(Exchange exchange) {
+		Connection connection;
+		synchronized (LOCK) {
+			connection = idle.pollFirst();
+			if (connection == null) {
+				if (open >= MAX_CONNECTIONS) {
+					waiting.add(exchange);
+					return;
+				}
+				open++;
+			}
+		}
+		if (connection != null) {
+			connection.send(exchange);
+		} else {
+			connect(exchange);
+		}
+	}
+
+	/**
+	 * Hands a connection that completed its request to the next waiting request, or keeps it idle.
+	 * @param connection the connection, or null if a connection could not be opened
+	 * @param reusable whether the connection can send another request
+	 */
+	private static void release(Connection connection, boolean reusable) {
+		Exchange next;
+		synchronized (LOCK) {
+			next = waiting.poll();
+			if (next == null) {
+				if (reusable) {
+					idle.addFirst(connection);
+				} else {
+					open--;
+				}
+			}
+		}
+		if (!reusable && connection != null) {
+			connection.close();
+		}
+		if (next != null && reusable) {
+			connection.send(next);
+		} else if (next != null) {
+			// The next request takes the place of the closed connection
+			connect(next);
+		}
+	}
+
+	private static void connect(Exchange exchange) {
+		AsynchronousSocketChannel channel;
+		try {
+			channel = AsynchronousSocketChannel.open(GROUP);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		} catch (IOException e) {
+			release(null, false);
+			exchange.fail(e);
+			return;
+		}
+		channel.connect(ADDRESS, exchange, new CompletionHandler<Void, Exchange>() {
+			@Override
+			public void completed(Void result, Exchange exchange) {
+				new Connection(channel).send(exchange);
+			}
+
+			@Override
+			public void failed(Throwable e, Exchange exchange) {
+				closeQuietly(channel);
+				release(null, false);
+				exchange.fail(e);
+			}
+		});
+	}
+
+	private static void closeQuietly(AsynchronousSocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// The connection is not used anymore
+		}
+	}
+
+	private static int indexOf(byte[] data, int length, byte[] pattern, int from) {
+		for (int i = from; i <= length - pattern.length; i++) {
+			int j = 0;
+			while (j < pattern.length && data[i + j] == pattern[j]) {
+				j++;
+			}
+			if (j == pattern.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * A request and the future of its response.
+	 */
+	private static class Exchange {
+		private final String method;
+		private final String endpoint;
+		private final byte[] request;
+		private final CompletableFuture<Response> future = new CompletableFuture<>();
+		private final long created = System.nanoTime();
+		// When the request was written to a connection, or created if it never was
+		private long start = created;
+		private boolean retried;
+
+		Exchange(String method, String endpoint, byte[] request) {
+			this.method = method;
+			this.endpoint = endpoint;
+			this.request = request;
+		}
+
+		/**
+		 * Starts the clock of the request as it is written to a connection.
+		 */
+		void sent() {
+			start = System.nanoTime();
+			if (!retried) {
+				queueLatency.recordNanos(start - created);
+			}
+		}
+
+		/**
+		 * Whether sending the request twice has the same effect as sending it once.
+		 */
+		boolean isIdempotent() {
+			switch (method) {
+			case "GET":
+			case "HEAD":
+			case "PUT":
+			case "DELETE":
+			case "OPTIONS":
+				return true;
+			default:
+				return false;
+			}
+		}
+
+		void complete(Response response) {
+			TestClient.getStatistics().record(endpoint, System.nanoTime() - start, response.getStatusCode());
+			future.complete(response);
+		}
+
+		void fail(Throwable e) {
+			TestClient.getStatistics().record(endpoint, System.nanoTime() - start,
+					EndpointStatistics.NO_RESPONSE);
+			future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * A connection that sends one request at a time and parses its response as it arrives.
+	 */
+	private static class Connection implements CompletionHandler<Integer, ByteBuffer> {
+		private final AsynchronousSocketChannel channel;
+		private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+		private Exchange exchange;
+		private int requests;
+		// Whether the whole request of the exchange was written
+		private boolean written;
+
+		// The response received so far
+		private byte[] data = new byte[8192];
+		private int length;
+		// The parsed head, once it is complete
+		private int bodyStart;
+		private int status;
+		private String statusLine;
+		private List<Header> headers;
+		private String contentType;
+		private long contentLength;
+		private boolean chunked;
+		private boolean keepAlive;
+		// The decoded chunks and the start of the next chunk
+		private ByteArrayOutputStream chunks;
+		private int chunkStart;
+
+		Connection(AsynchronousSocketChannel channel) {
+			this.channel = channel;
+		}
+
+		void send(Exchange exchange) {
+			this.exchange = exchange;
+			if (data.length > MAX_BUFFER) {
+				data = new byte[8192];
+			}
+			length = 0;
+			bodyStart = -1;
+			chunks = null;
+			written = false;
+			exchange.sent();
+			ByteBuffer request = ByteBuffer.wrap(exchange.request);
+			channel.write(request, SOCKET_TIMEOUT, TimeUnit.MILLISECONDS, request,
+					new CompletionHandler<Integer, ByteBuffer>() {
+						@Override
+						public void completed(Integer bytes, ByteBuffer request) {
+							if (request.hasRemaining()) {
+								channel.write(request, SOCKET_TIMEOUT, TimeUnit.MILLISECONDS, request, this);
+							} else {
+								written = true;
+								read();
+							}
+						}
+
+						@Override
+						public void failed(Throwable e, ByteBuffer request) {
+							Connection.this.failed(e, request);
+						}
+					});
+		}
+
+		private void read() {
+			// Called on Buffer, the covariant override does not exist on Java 8
+			((Buffer) readBuffer).clear();
+			channel.read(readBuffer, SOCKET_TIMEOUT, TimeUnit.MILLISECONDS, readBuffer, this);
+		}
+
+		@Override
+		public void completed(Integer read, ByteBuffer buffer) {
+			Response response;
+			try {
+				if (read < 0) {
+					// Without a length the body ends when the server closes the connection
+					if (bodyStart < 0 || chunked || contentLength >= 0) {
+						throw new IOException("Connection closed before the response was complete");
+					}
+					keepAlive = false;
+					response = response(Arrays.copyOfRange(data, bodyStart, length));
+				} else {
+					append(buffer);
+					response = parse();
+				}
+			} catch (IOException | RuntimeException e) {
+				failed(e, buffer);
+				return;
+			}
+			if (response == null) {
+				read();
+				return;
+			}
+			Exchange completed = exchange;
+			exchange = null;
+			requests++;
+			release(this, keepAlive);
+			completed.complete(response);
+		}
+
+		@Override
+		public void failed(Throwable e, ByteBuffer buffer) {
+			Exchange failed = exchange;
+			exchange = null;
+			release(this, false);
+			// A kept connection may have been closed or reset by the server while it was idle. The request is sent
+			// again on a new connection if nothing of the response was received, and the server cannot have
+			// acted on it twice: it is idempotent or was not completely written. A timeout is never retried.
+			boolean closed = e instanceof IOException && !(e instanceof InterruptedByTimeoutException);
+			if (closed && requests > 0 && length == 0 && !failed.retried && (failed.isIdempotent() || !written)) {
+				failed.retried = true;
+				dispatch(failed);
+			} else {
+				failed.fail(e);
+			}
+		}
+
+		void close() {
+			closeQuietly(channel);
+		}
+
+		private void append(ByteBuffer buffer) {
+			((Buffer) buffer).flip();
+			int read = buffer.remaining();
+			if (length + read > data.length) {
+				data = Arrays.copyOf(data, Math.max(data.length * 2, length + read));
+			}
+			buffer.get(data, length, read);
+			length += read;
+		}
+
+		/**
+		 * @return the response, or null if it is not complete yet
+		 */
+		private Response parse() throws IOException {
+			if (bodyStart < 0) {
+				int end = indexOf(data, length, HEADER_END, 0);
+				if (end < 0) {
+					return null;
+				}
+				parseHead(new String(data, 0, end, StandardCharsets.ISO_8859_1));
+				bodyStart = end + HEADER_END.length;
+				chunkStart = bodyStart;
+			}
+			if (exchange.method.equals("HEAD") || status / 100 == 1 || status == 204 || status == 304) {
+				return response(new byte[0]);
+			}
+			if (chunked) {
+				return parseChunks();
+			}
+			if (contentLength >= 0) {
+				return length - bodyStart < contentLength ? null
+						: response(Arrays.copyOfRange(data, bodyStart, bodyStart + (int) contentLength));
+			}
+			return null;
+		}
+
+		private void parseHead(String head) throws IOException {
+			String[] lines = head.split("\r\n");
+			String[] status = lines[0].split(" ", 3);
+			if (status.length < 2 || !status[0].startsWith("HTTP/")) {
+				throw new IOException("Invalid status line " + lines[0]);
+			}
+			this.statusLine = lines[0];
+			this.status = Integer.parseInt(status[1]);
+			headers = new ArrayList<>();
+			contentType = "";
+			contentLength = -1;
+			chunked = false;
+			keepAlive = status[0].equals("HTTP/1.1");
+			for (int i = 1; i < lines.length; i++) {
+				int colon = lines[i].indexOf(':');
+				if (colon <= 0) {
+					continue;
+				}
+				String name = lines[i].substring(0, colon).trim();
+				String value = lines[i].substring(colon + 1).trim();
+				if (name.equalsIgnoreCase("Content-Type")) {
+					// Added to the headers by the response builder
+					contentType = value;
+					continue;
+				}
+				headers.add(new Header(name, value));
+				if (name.equalsIgnoreCase("Content-Length")) {
+					contentLength = Long.parseLong(value);
+				} else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+					chunked = value.toLowerCase().contains("chunked");
+				} else if (name.equalsIgnoreCase("Connection")) {
+					keepAlive = value.equalsIgnoreCase("keep-alive")
+							|| keepAlive && !value.equalsIgnoreCase("close");
+				}
+			}
+		}
+
+		private Response parseChunks() {
+			if (chunks == null) {
+				chunks = new ByteArrayOutputStream();
+			}
+			while (true) {
+				int lineEnd = indexOf(data, length, CRLF, chunkStart);
+				if (lineEnd < 0) {
+					return null;
+				}
+				String line = new String(data, chunkStart, lineEnd - chunkStart, StandardCharsets.ISO_8859_1);
+				int extension = line.indexOf(';');
+				int size = Integer.parseInt((extension < 0 ? line : line.substring(0, extension)).trim(), 16);
+				if (size == 0) {
+					// The last chunk is followed by the trailers, which end with an empty line
+					return indexOf(data, length, HEADER_END, lineEnd) < 0 ? null : response(chunks.toByteArray());
+				}
+				int chunkEnd = lineEnd + CRLF.length + size;
+				if (length < chunkEnd + CRLF.length) {
+					return null;
+				}
+				chunks.write(data, lineEnd + CRLF.length, size);
+				chunkStart = chunkEnd + CRLF.length;
+			}
+		}
+
+		private Response response(byte[] body) {
+			RestAssuredResponseImpl response = (RestAssuredResponseImpl) new ResponseBuilder()
+					.setStatusCode(status)
+					.setStatusLine(statusLine)
+					.setHeaders(new Headers(headers))
+					.setContentType(contentType)
+					.setBody(body)
+					.build();
+			// A built response has no configuration, which it needs to parse its body
+			response.setConfig(RestAssuredConfig.config());
+			return response;
+		}
+	}
+}
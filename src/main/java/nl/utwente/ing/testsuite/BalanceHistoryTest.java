@@ -1,13 +1,15 @@
 package nl.utwente.ing.testsuite;
 
 
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.response.Response;
 import nl.utwente.ing.model.CandleStick;
+import nl.utwente.ing.model.TimeInterval;
+import nl.utwente.ing.model.Transaction;
+import org.json.JSONArray;
 import org.json.JSONObject;
-import org.junit.BeforeClass;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.time.Instant;
@@ -15,18 +17,18 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
 
-import static io.restassured.RestAssured.given;
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class BalanceHistoryTest {
-	private static String sessionID;
+	private String sessionID;
 	private static final double EPSILON = 0.005;
 	
-	@BeforeClass
-	public static void before() {
-		RestAssured.basePath = "/api/v1";
+	@Before
+	public void before() {
 		sessionID = getNewSession();
 	}
 	
@@ -472,26 +474,89 @@ public class BalanceHistoryTest {
 	
 	@Test
 	public void testEfficiency() {
-		
-		long start;
-		long duration;
-		double avg = 0;
+		// Warmup, iterations, concurrency and percentile budgets are set with benchmark.* system properties
 		int nrTrials = 20;
-		for (int i = 0; i < nrTrials; i++) {
-			start = System.nanoTime();
-			given().
-				contentType("application/json").
-				header("X-session-ID", sessionID).
-			when().
-				get("/balance/history?interval=hour&intervals=200");
-			duration = System.nanoTime() - start;
-			avg += (duration/(Math.pow(10, 6)*nrTrials));
+		String[] intervals = {"hour","day","week","month","year"};
+		String session = sessionID;
+		
+		// The history is measured on a session of production size, set with the efficiency.transactions system
+		// property, spread over five years so the candlesticks of every interval cover many transactions
+		int nrTransactions = Integer.getInteger("efficiency.transactions", 10000);
+		Instant now = Instant.now();
+		new TransactionSeeder()
+				.withDates(TransactionSeeder.uniformDates(now.minus(5 * 365, ChronoUnit.DAYS), now))
+				.withAmounts(TransactionSeeder.uniformAmounts(1, 500))
+				.withTypes(TransactionSeeder.depositRatio(0.6))
+				.seed(session, nrTransactions);
+		LatencyBenchmark benchmark = LatencyBenchmark.fromSystemProperties(nrTrials);
+
+		for (String interval : intervals) {
+			LatencyHistogram histogram = benchmark.run(() ->
+				given().
+					contentType("application/json").
+					header("X-session-ID", session).
+				when().
+					get("/balance/history?interval=" + interval + "&intervals=200").
+				then().
+					assertThat().statusCode(200));
+
+			benchmark.report("GET /balance/history?interval=" + interval + "&intervals=200", histogram);
+			// The average response time should stay below one second
+			assertTrue((long)(histogram.getMean() / 1000) < 1000);
 		}
-		assertTrue((long)avg < 1000);
 	}
 	
 	
 	
+	@Test
+	public void testLargeSession() {
+		// The number of transactions is set with the seed.transactions system property
+		int nrTransactions = Integer.getInteger("seed.transactions", 1000);
+		int nrIntervals = 200;
+		String testSessionId = getNewSession();
+		
+		ZonedDateTime today = Instant.now().atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS);
+		// The expected candlesticks are computed from the seeded transactions
+		TransactionColumns expected = new TransactionColumns();
+		
+		TransactionSeeder seeder = new TransactionSeeder()
+				.withDates(TransactionSeeder.uniformDates(today.minus(150, ChronoUnit.DAYS).toInstant(), Instant.now()))
+				.withAmounts(TransactionSeeder.uniformAmounts(1, 500))
+				.withTypes(TransactionSeeder.depositRatio(0.6));
+		int posted = seeder.seed(testSessionId, nrTransactions, expected::add);
+		assertEquals(nrTransactions, posted);
+		
+		CandleStick[] candlesticks = given().
+				contentType("application/json").
+				header("X-session-ID", testSessionId).
+			when().
+				get("/balance/history?interval=day&intervals=" + nrIntervals).as(CandleStick[].class);
+		assertEquals(nrIntervals, candlesticks.length);
+		checkIntervalComputation(candlesticks, ChronoUnit.DAYS);
+		
+		// Open, close and volume do not depend on the order of transactions within a day, high and low only
+		// have to enclose them because transactions on the same minute may have been posted in any order
+		CandleStick[] expectedCandlesticks = expected.getCandleSticks(TimeInterval.DAY,
+				candlesticks[nrIntervals - 1].getTimestamp(), nrIntervals);
+		for (int i = 0; i < nrIntervals; i++) {
+			CandleStick c = candlesticks[i];
+			CandleStick e = expectedCandlesticks[i];
+			double tolerance = EPSILON + Math.abs(e.getClose()) * 1e-9;
+			assertEquals(e.getTimestamp(), c.getTimestamp());
+			assertEquals(e.getOpen(), c.getOpen(), tolerance);
+			assertEquals(e.getClose(), c.getClose(), tolerance);
+			assertEquals(e.getVolume(), c.getVolume(), EPSILON + e.getVolume() * 1e-9);
+			assertTrue(c.getHigh() + tolerance >= Math.max(e.getOpen(), e.getClose()));
+			assertTrue(c.getLow() - tolerance <= Math.min(e.getOpen(), e.getClose()));
+		}
+		
+		// All seeded transactions should be valid transactions, they are checked while the response is received
+		try (Stream<Transaction> transactions = JsonListReader.get(testSessionId,
+				"/transactions?limit=" + nrTransactions, Transaction.class).stream()) {
+			assertEquals(nrTransactions, transactions.filter(Transaction::validTransaction).count());
+		}
+	}
+	
 	private static void checkIntervalComputation(CandleStick[] candlesticks, ChronoUnit interval) {
 		// Check that the intervals are computed correctly
 		
@@ -539,7 +604,31 @@ public class BalanceHistoryTest {
 		}
 	}
 	
-	private static void postTransaction(JSONObject transaction) {
+	/**
+	 * The balance history depends on the current time, so it has no ETag and is never answered from a cache,
+	 * while the transactions that make it up are.
+	 */
+	@Test
+	public void testConditionalGet() {
+		ConditionalCache cache = new ConditionalCache();
+		String history = "/balance/history?interval=hour&intervals=5";
+		cache.assertChanged(sessionID, "/transactions");
+		assertEquals(null, cache.get(sessionID, history).getETag());
+		
+		postTransaction(new JSONObject()
+				.put("date", getDateTime(Instant.now().atZone(ZoneOffset.UTC)))
+				.put("amount", 10.0)
+				.put("externalIBAN", "NL12ABNA0457688830")
+				.put("type", "deposit"));
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/transactions");
+		ConditionalCache.Result candlesticks = cache.get(sessionID, history);
+		assertTrue(!candlesticks.isCached() && candlesticks.getETag() == null);
+		assertEquals(10.0, new JSONArray(candlesticks.getBody()).getJSONObject(4).getDouble("close"), EPSILON);
+		assertEquals(1, cache.getHits());
+	}
+	
+	private void postTransaction(JSONObject transaction) {
 		given().
 			header("X-session-ID", sessionID).
 			header("Content-Type", "application/JSON").
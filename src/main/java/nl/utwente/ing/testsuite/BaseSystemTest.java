@@ -1,32 +1,33 @@
 package nl.utwente.ing.testsuite;
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
+import org.json.JSONArray;
 import org.json.JSONObject;
-import org.junit.BeforeClass;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
-import static io.restassured.RestAssured.given;
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.*;
 
 public class BaseSystemTest {
-	private static String sessionID;
-	private static String validCategoryID;
-	private static String validTransactionID;
+	private String sessionID;
+	private String validCategoryID;
+	private String validTransactionID;
 	private static final int INITIAL_TRANSACTIONS = 25;
 	private static final int INITIAL_CATEGORIES = 5;
 	
-	@BeforeClass
-	public static void before() {
-		RestAssured.basePath = "/api/v1";
+	@Before
+	public void before() {
 		sessionID = 
 		given().
 		        contentType("application/json").
@@ -82,14 +83,7 @@ public class BaseSystemTest {
 												.put("amount", 10.0)
 												.put("externalIBAN", "testIBAN")
 												.put("type", "deposit");
-		for (int i = 0; i< INITIAL_TRANSACTIONS; i++) {
-			given().
-				header("X-session-ID", sessionID).
-				header("Content-Type", "application/JSON").
-				body(transaction.toString()).
-			when().
-				post("/transactions");
-		}
+		new TransactionImporter(sessionID).importValid(Collections.nCopies(INITIAL_TRANSACTIONS, transaction));
 
 		
 		// Get a valid transaction id to work with
@@ -779,19 +773,9 @@ public class BaseSystemTest {
 	
 	@Test
 	public void testDeleteTransaction() {
-		JsonPath transactionJson = 
-		given().
-			header("X-session-ID", sessionID).
-			header("Content-Type", "application/JSON").
-		when().
-	        get("/transactions?limit=100").
-		then().
-			contentType(ContentType.JSON).
-		extract().
-			response().jsonPath();
-		// Get the last transaction id
-		int listSize = transactionJson.getList("id").size();
-		String lastTransactionID = transactionJson.getList("id").get(listSize - 1).toString();
+		// Get the last transaction id, walking all pages of the session
+		String lastTransactionID = new TransactionCursor(sessionID).stream()
+				.reduce((first, second) -> second).map(t -> String.valueOf(t.getId())).get();
 		// ---- Headers ----
 		// Mismatching session IDs
 		given().
@@ -1494,4 +1478,269 @@ public class BaseSystemTest {
 		assertTrue(Integer.parseInt(session) > 0);
 		
 	}
+	
+	@Test
+	public void testBatchImport() {
+		JSONObject valid = new JSONObject()
+				.put("date", "2018-04-08T21:15Z")
+				.put("amount", 10.0)
+				.put("externalIBAN", "testIBAN")
+				.put("type", "withdrawal");
+		JSONObject invalid = new JSONObject(valid.toString()).put("type", "invalid");
+		
+		// ---- JSON array ----
+		// Every item gets a result, an invalid item does not stop the other items
+		Response response = given().
+				header("X-session-ID", sessionID).
+				header("Content-Type", "application/JSON").
+				body(new JSONArray().put(valid).put(invalid).put(valid).toString()).
+			when().
+				post("/transactions/batch");
+		response.then().assertThat().statusCode(207);
+		TransactionImporter.Result[] results = response.as(TransactionImporter.Result[].class);
+		assertEquals(3, results.length);
+		assertTrue(results[0].isCreated());
+		assertEquals(405, results[1].getStatus());
+		assertFalse(results[1].isCreated());
+		assertTrue(results[2].isCreated());
+		for (int i : new int[] {0, 2}) {
+			given().
+				header("X-session-ID", sessionID).
+			when().
+				get("/transactions/" + results[i].getId()).
+			then().
+				assertThat().statusCode(200);
+		}
+		
+		// ---- NDJSON ----
+		given().
+			header("X-session-ID", sessionID).
+			header("Content-Type", "application/x-ndjson").
+			body(valid.toString() + "\n" + valid.toString() + "\n").
+		when().
+			post("/transactions/batch").
+		then().
+			assertThat().statusCode(201);
+		
+		// ---- Client ----
+		List<TransactionImporter.Result> imported = new TransactionImporter(sessionID).withChunkSize(2)
+				.importAll(Arrays.asList(valid, valid, invalid, valid, valid));
+		assertEquals(5, imported.size());
+		for (int i = 0; i < imported.size(); i++) {
+			assertEquals(i, imported.get(i).getIndex());
+			assertEquals(i != 2, imported.get(i).isCreated());
+		}
+		
+		// ---- Headers ----
+		given().
+			header("Content-Type", "application/JSON").
+			body(new JSONArray().put(valid).toString()).
+		when().
+			post("/transactions/batch").
+		then().
+			assertThat().statusCode(401);
+		
+		// ---- Body ----
+		given().
+			header("X-session-ID", sessionID).
+			header("Content-Type", "application/JSON").
+			body("").
+		when().
+			post("/transactions/batch").
+		then().
+			assertThat().statusCode(405);
+	}
+	
+	/**
+	 * Posts the same transactions to two sessions with the same rules, one by one and as a batch, and
+	 * checks that both sessions end up in the same state.
+	 */
+	@Test
+	public void testBatchImportConformance() {
+		List<JSONObject> transactions = Arrays.asList(
+				transaction("2018-01-05T09:00Z", 1000, "Salary", "deposit"),
+				transaction("2018-01-10T12:00Z", 40, "Groceries at the market", "withdrawal"),
+				transaction("2018-02-02T12:00Z", 30, "Payment request", "deposit"),
+				transaction("2018-02-15T08:00Z", 1200, "Rent", "withdrawal"),
+				transaction("2018-01-20T10:00Z", 10, "Back-dated refund", "deposit"),
+				transaction("2018-04-01T09:00Z", 2000, "Salary", "deposit"),
+				transaction("2018-05-03T18:00Z", 60, "Groceries", "withdrawal"),
+				transaction("2018-09-01T09:00Z", 5, "Groceries", "withdrawal"));
+		
+		String single = conformanceSession();
+		for (JSONObject transaction : transactions) {
+			given().
+				header("X-session-ID", single).
+				header("Content-Type", "application/JSON").
+				body(transaction.toString()).
+			when().
+				post("/transactions").
+			then().
+				assertThat().statusCode(201);
+		}
+		String batch = conformanceSession();
+		new TransactionImporter(batch).withChunkSize(3).importValid(transactions);
+		
+		// The scenario triggers the category rule, messages and the saving goal
+		JSONArray messages = new JSONArray(getBody(single, "/messages"));
+		assertTrue(messages.length() > 0);
+		assertTrue(new JSONArray(getBody(single, "/savingGoals")).getJSONObject(0).getDouble("balance") > 0);
+		
+		for (String path : new String[] {"/transactions?limit=100", "/messages", "/savingGoals", "/paymentRequests",
+				"/balance/history?interval=month&intervals=12"}) {
+			String expected = getBody(single, path);
+			String actual = getBody(batch, path);
+			assertTrue(path + " differs:\n" + expected + "\n" + actual,
+					new JSONArray(expected).similar(new JSONArray(actual)));
+		}
+	}
+	
+	/**
+	 * Checks that the ETags of the transactions and the categories change exactly when a request changes
+	 * their lists, and that an unchanged list is answered with 304 Not Modified.
+	 */
+	@Test
+	public void testConditionalGet() {
+		ConditionalCache cache = new ConditionalCache();
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertChanged(sessionID, "/categories");
+		cache.assertUnchanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/categories");
+
+		// A new category is not used by any transaction
+		postObject(sessionID, "/categories", new JSONObject().put("name", "new"));
+		cache.assertChanged(sessionID, "/categories");
+		cache.assertUnchanged(sessionID, "/transactions");
+
+		// Reading does not change anything
+		getBody(sessionID, "/transactions/" + validTransactionID);
+		getBody(sessionID, "/categories/" + validCategoryID);
+		cache.assertUnchanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/categories");
+
+		// Assigning a category only changes the transactions, assigning it again changes nothing
+		JSONObject category = new JSONObject().put("category_id", Integer.parseInt(validCategoryID));
+		for (int i = 0; i < 2; i++) {
+			given().
+				header("X-session-ID", sessionID).
+				header("Content-Type", "application/JSON").
+				body(category.toString()).
+			when().
+				patch("/transactions/" + validTransactionID + "/category").
+			then().
+				assertThat().statusCode(200);
+		}
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/categories");
+
+		// A transaction shows its category, so renaming it changes both lists
+		given().
+			header("X-session-ID", sessionID).
+			header("Content-Type", "application/JSON").
+			body(new JSONObject().put("name", "renamed").toString()).
+		when().
+			put("/categories/" + validCategoryID).
+		then().
+			assertThat().statusCode(200);
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertChanged(sessionID, "/categories");
+
+		// Other pages and other sessions are cached on their own
+		cache.assertChanged(sessionID, "/transactions?offset=5");
+		String other = conformanceSession();
+		cache.assertChanged(other, "/transactions");
+		postObject(other, "/transactions", transaction("2018-01-05T09:00Z", 10, "Other", "deposit"));
+		cache.assertChanged(other, "/transactions");
+		cache.assertUnchanged(sessionID, "/transactions");
+
+		// Deleting the category takes it off the transaction
+		given().
+			header("X-session-ID", sessionID).
+		when().
+			delete("/categories/" + validCategoryID).
+		then().
+			assertThat().statusCode(204);
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertChanged(sessionID, "/categories");
+
+		given().
+			header("X-session-ID", sessionID).
+		when().
+			delete("/transactions/" + validTransactionID).
+		then().
+			assertThat().statusCode(204);
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/categories");
+		assertTrue(cache.getHits() > 0);
+	}
+
+	private static JSONObject transaction(String date, double amount, String description, String type) {
+		return new JSONObject()
+				.put("date", date)
+				.put("amount", amount)
+				.put("externalIBAN", "NL12ABNA0457688830")
+				.put("description", description)
+				.put("type", type);
+	}
+	
+	/**
+	 * @return a new session with a category rule, a message rule, a saving goal and a payment request
+	 */
+	private static String conformanceSession() {
+		String session = 
+		given().
+		        contentType("application/json").
+		when().
+		        post("/sessions").
+		then().
+				contentType(ContentType.JSON).
+		extract().
+				response().jsonPath().getString("id");
+		int categoryId = postObject(session, "/categories", new JSONObject().put("name", "Groceries")).getInt("id");
+		postObject(session, "/categoryRules", new JSONObject()
+				.put("description", "Groceries")
+				.put("iBAN", "")
+				.put("type", "withdrawal")
+				.put("category_id", categoryId)
+				.put("applyOnHistory", false));
+		postObject(session, "/messageRules", new JSONObject()
+				.put("type", "warning")
+				.put("value", 50.0)
+				.put("category_id", categoryId));
+		postObject(session, "/savingGoals", new JSONObject()
+				.put("name", "Holiday")
+				.put("goal", 500.0)
+				.put("savePerMonth", 200.0)
+				.put("minBalanceRequired", 100.0));
+		postObject(session, "/paymentRequests", new JSONObject()
+				.put("description", "Dinner")
+				.put("due_date", "2018-03-01T00:00Z")
+				.put("amount", 30.0)
+				.put("number_of_requests", 1));
+		return session;
+	}
+	
+	private static JsonPath postObject(String session, String path, JSONObject object) {
+		return given().
+				header("X-session-ID", session).
+				header("Content-Type", "application/JSON").
+				body(object.toString()).
+			when().
+				post(path).
+			then().
+				assertThat().statusCode(201).
+			extract().
+				response().jsonPath();
+	}
+	
+	private static String getBody(String session, String path) {
+		return given().
+				header("X-session-ID", session).
+			when().
+				get(path).
+			then().
+				assertThat().statusCode(200).
+			extract().
+				asString();
+	}
 }
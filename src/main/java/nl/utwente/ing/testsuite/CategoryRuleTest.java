@@ -1,31 +1,35 @@
 package nl.utwente.ing.testsuite;
 
 
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
 import nl.utwente.ing.model.CategoryRule;
 import nl.utwente.ing.model.Transaction;
+import nl.utwente.ing.model.TransactionType;
 import org.json.JSONObject;
-import org.junit.BeforeClass;
+import org.junit.Before;
 import org.junit.Test;
 
-import static io.restassured.RestAssured.given;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class CategoryRuleTest {
-	private static String sessionID;
-	private static String validCategoryID;
-	private static String validCategoryRuleID;
+	private String sessionID;
+	private String validCategoryID;
+	private String validCategoryRuleID;
 	private static final int INITIAL_CATEGORIES = 5;
 	private static final int INITIAL_CATEGORY_RULES = 5;
 	
-	@BeforeClass
-	public static void before() {
-		RestAssured.basePath = "/api/v1";
+	@Before
+	public void before() {
 		sessionID = 
 		given().
 		        contentType("application/json").
@@ -954,4 +958,145 @@ public class CategoryRuleTest {
 		}
 
 	}
+	
+	@Test
+	public void testApplyOnHistoryLargeSession() {
+		// The number of transactions is set with the seed.transactions system property
+		int nrTransactions = Integer.getInteger("seed.transactions", 1000);
+		CategoryRule rule = new CategoryRule(0, "Groceries", "", "withdrawal", 0, true);
+		// The descriptions that contain "Groceries" exactly, so only their withdrawals match the rule
+		Set<String> matchingDescriptions = new HashSet<>(Arrays.asList("Groceries at the market", "Groceries"));
+		Predicate<Transaction> expectedMatch = t -> t.getType() == TransactionType.withdrawal
+				&& matchingDescriptions.contains(t.getDescription());
+		
+		// Count the transactions the rule should categorize while they are generated
+		int[] nrMatching = new int[1];
+		int posted = new TransactionSeeder()
+				.withDescriptions(TransactionSeeder.oneOf("Groceries at the market", "Monthly rent", "Salary",
+						"Online groceries", "Groceries", ""))
+				.seed(sessionID, nrTransactions, t -> {
+					if (expectedMatch.test(t)) {
+						nrMatching[0]++;
+					}
+				});
+		assertEquals(nrTransactions, posted);
+		
+		int newCategory = given().
+				header("X-session-ID", sessionID).
+				header("Content-Type", "application/JSON").
+				body(new JSONObject().put("name", "groceries").toString()).
+			when().
+				post("/categories").as(nl.utwente.ing.model.Category.class).getId();
+		
+		JSONObject categoryRule = new JSONObject()
+				.put("description", rule.getDescription())
+				.put("iBAN", rule.getiBAN())
+				.put("type", rule.getType().toString())
+				.put("category_id", newCategory)
+				.put("applyOnHistory", true);
+		long start = System.nanoTime();
+		given().
+			header("X-session-ID", sessionID).
+			header("Content-Type", "application/JSON").
+			body(categoryRule.toString()).
+		when().
+			post("/categoryRules").
+		then().
+			assertThat().statusCode(201);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("Applied a category rule on %d transactions in %.0fms (%.0f/s)",
+				nrTransactions, seconds * 1000, nrTransactions / Math.max(seconds, 1e-9)));
+		
+		// Exactly the transactions that match the rule should have its category
+		int[] nrCategorized = new int[1];
+		new TransactionCursor(sessionID, 1000, null).forEachRemaining(t -> {
+			if (expectedMatch.test(t)) {
+				assertEquals(newCategory, t.CategoryID());
+				nrCategorized[0]++;
+			} else {
+				assertTrue(t.CategoryID() != newCategory);
+			}
+		});
+		assertEquals(nrMatching[0], nrCategorized[0]);
+	}
+	
+	/**
+	 * Checks that the ETag of the category rules changes with every rule that is added, changed or deleted and
+	 * that the ETag of the transactions only changes when a rule categorizes a transaction.
+	 */
+	@Test
+	public void testConditionalGet() {
+		ConditionalCache cache = new ConditionalCache();
+		JSONObject transaction = new JSONObject().
+				put("date", "2018-04-08T21:15:55.450Z").
+				put("amount", 12.5).
+				put("externalIBAN", "NL12ABNA0457688830").
+				put("description", "Coffee at the station").
+				put("type", "withdrawal");
+		given().
+			header("X-session-ID", sessionID).
+			header("Content-Type", "application/JSON").
+			body(transaction.toString()).
+		when().
+			post("/transactions").
+		then().
+			assertThat().statusCode(201);
+		cache.assertChanged(sessionID, "/categoryRules");
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/categoryRules");
+
+		// A rule that matches no transaction, or is not applied on the history, leaves the transactions alone
+		JSONObject[] rules = {
+				new JSONObject().put("description", "Tea").put("iBAN", "").put("type", "withdrawal")
+						.put("category_id", validCategoryID).put("applyOnHistory", true),
+				new JSONObject().put("description", "Coffee").put("iBAN", "").put("type", "withdrawal")
+						.put("category_id", validCategoryID).put("applyOnHistory", false)};
+		for (JSONObject rule : rules) {
+			given().
+				header("X-session-ID", sessionID).
+				header("Content-Type", "application/JSON").
+				body(rule.toString()).
+			when().
+				post("/categoryRules").
+			then().
+				assertThat().statusCode(201);
+			cache.assertChanged(sessionID, "/categoryRules");
+			cache.assertUnchanged(sessionID, "/transactions");
+		}
+
+		// Applying a matching rule categorizes the transaction, applying it again changes nothing
+		JSONObject rule = rules[1].put("applyOnHistory", true);
+		for (int i = 0; i < 2; i++) {
+			given().
+				header("X-session-ID", sessionID).
+				header("Content-Type", "application/JSON").
+				body(rule.toString()).
+			when().
+				put("/categoryRules/" + validCategoryRuleID).
+			then().
+				assertThat().statusCode(200);
+			cache.assertChanged(sessionID, "/categoryRules");
+			if (i == 0) {
+				cache.assertChanged(sessionID, "/transactions");
+			} else {
+				cache.assertUnchanged(sessionID, "/transactions");
+			}
+		}
+
+		given().
+			header("X-session-ID", sessionID).
+		when().
+			get("/categoryRules/" + validCategoryRuleID).
+		then().
+			assertThat().statusCode(200);
+		cache.assertUnchanged(sessionID, "/categoryRules");
+		given().
+			header("X-session-ID", sessionID).
+		when().
+			delete("/categoryRules/" + validCategoryRuleID).
+		then().
+			assertThat().statusCode(204);
+		cache.assertChanged(sessionID, "/categoryRules");
+		cache.assertUnchanged(sessionID, "/transactions");
+	}
 }
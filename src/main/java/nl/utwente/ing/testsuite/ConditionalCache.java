@@ -0,0 +1,128 @@
+package nl.utwente.ing.testsuite;
+
+import static nl.utwente.ing.testsuite.TestClient.given;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.restassured.response.Response;
+
+/**
+ * Caches the responses of the list endpoints by their ETag, so a list that did not change is not sent again.
+ * A list that is in the cache is requested with its tag in the If-None-Match header; the server then answers
+ * 304 Not Modified without a body as long as the list is the same, and the cached body is used:
+ * <pre>
+ * ConditionalCache cache = new ConditionalCache();
+ * JSONArray transactions = new JSONArray(cache.get(session, "/transactions").getBody());
+ * </pre>
+ * Responses are cached per session and path, including the query. A cache can be shared between threads.
+ */
+public class ConditionalCache {
+	private final Map<String, Result> entries = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * The body of a list and where it came from.
+	 */
+	public static class Result {
+		private final String body;
+		private final String eTag;
+		private final boolean cached;
+
+		Result(String body, String eTag, boolean cached) {
+			this.body = body;
+			this.eTag = eTag;
+			this.cached = cached;
+		}
+
+		public String getBody() {
+			return body;
+		}
+
+		/**
+		 * @return the ETag of the list, or null if the server did not send one
+		 */
+		public String getETag() {
+			return eTag;
+		}
+
+		/**
+		 * @return whether the server answered 304 Not Modified and the body came from the cache
+		 */
+		public boolean isCached() {
+			return cached;
+		}
+	}
+
+	/**
+	 * Gets a list, from the cache if the server confirms it did not change.
+	 * @param sessionId the session to send in the X-session-ID header
+	 * @param path the path of the list endpoint, including the query
+	 * @return the current list
+	 * @throws AssertionError if the server answered anything but 200 or 304
+	 */
+	public Result get(String sessionId, String path) {
+		String key = sessionId + " " + path;
+		Result entry = entries.get(key);
+		Response response = (entry == null ? given() : given().header("If-None-Match", entry.getETag())).
+				header("X-session-ID", sessionId).
+			when().
+				get(path);
+		if (entry != null && response.getStatusCode() == 304) {
+			hits.increment();
+			return new Result(entry.getBody(), entry.getETag(), true);
+		}
+		if (response.getStatusCode() != 200) {
+			throw new AssertionError("GET " + path + " returned " + response.getStatusCode());
+		}
+		misses.increment();
+		Result result = new Result(response.asString(), response.getHeader("ETag"), false);
+		if (result.getETag() != null) {
+			entries.put(key, result);
+		} else {
+			entries.remove(key);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets a list and checks that it has a new ETag since the last time it was requested.
+	 * @throws AssertionError if the server answered 304 or sent the same tag
+	 */
+	public Result assertChanged(String sessionId, String path) {
+		Result previous = entries.get(sessionId + " " + path);
+		Result result = get(sessionId, path);
+		if (result.isCached() || previous != null && previous.getETag().equals(result.getETag())) {
+			throw new AssertionError("GET " + path + " did not change: " + result.getETag());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets a list that was requested before and checks that the server answered 304 Not Modified.
+	 * @throws AssertionError if the list has a new ETag
+	 */
+	public Result assertUnchanged(String sessionId, String path) {
+		Result result = get(sessionId, path);
+		if (!result.isCached()) {
+			throw new AssertionError("GET " + path + " changed to " + result.getETag() + ": " + result.getBody());
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of requests answered from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of requests that returned a new body
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+}
@@ -0,0 +1,194 @@
+package nl.utwente.ing.testsuite;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpCoreContext;
+
+import io.restassured.config.HttpClientConfig;
+
+/**
+ * The HTTP connections of all requests that go through {@link TestClient}. By default RestAssured opens a new
+ * connection for every request, which under load runs out of ephemeral ports; here the connections are kept
+ * alive in one pool that is shared by the whole JVM.
+ * RestAssured changes the interceptors of its client for every request, so every thread gets its own client,
+ * and all clients lease their connections from the same pool.
+ * Configured with the following system properties:
+ * <ul>
+ * <li>client.maxPerRoute: connections kept per host (default 64)</li>
+ * <li>client.maxTotal: connections kept in total (default 256)</li>
+ * <li>client.keepAlive: milliseconds an idle connection is kept if the server does not say (default 30000)</li>
+ * <li>client.tcpNoDelay: disable Nagle's algorithm (default true)</li>
+ * <li>client.connectTimeout: milliseconds to wait for a connection (default 10000)</li>
+ * <li>client.socketTimeout: milliseconds to wait for data, 0 waits forever (default 60000)</li>
+ * <li>client.measure: report the share of requests that reused a connection and the connect time per request
+ * when the JVM exits (default false)</li>
+ * </ul>
+ */
+// RestAssured 3.0.7 only takes an AbstractHttpClient, which needs the deprecated connection manager API; the
+// deprecated types are written out in full because Java 8 also warns about importing them
+@SuppressWarnings("deprecation")
+public final class ConnectionPool {
+	private static final int MAX_PER_ROUTE = Integer.getInteger("client.maxPerRoute", 64);
+	private static final int MAX_TOTAL = Integer.getInteger("client.maxTotal", 256);
+	private static final long KEEP_ALIVE = Long.getLong("client.keepAlive", 30000);
+	private static final boolean TCP_NO_DELAY = Boolean.parseBoolean(System.getProperty("client.tcpNoDelay", "true"));
+	private static final int CONNECT_TIMEOUT = Integer.getInteger("client.connectTimeout", 10000);
+	private static final int SOCKET_TIMEOUT = Integer.getInteger("client.socketTimeout", 60000);
+	private static final boolean MEASURE = Boolean.getBoolean("client.measure");
+
+	private static final LongAdder requests = new LongAdder();
+	private static final LongAdder connections = new LongAdder();
+	// The time spent connecting for every request, zero for a request on a kept connection
+	private static final LatencyHistogram connectTimes = new LatencyHistogram();
+	// The time the current thread spent connecting for the request it is sending
+	private static final ThreadLocal<long[]> connectNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+	private static final org.apache.http.impl.conn.PoolingClientConnectionManager MANAGER = createManager();
+	private static final ThreadLocal<org.apache.http.impl.client.DefaultHttpClient> CLIENTS =
+			ThreadLocal.withInitial(ConnectionPool::createClient);
+
+	static {
+		// Connections that were closed by the server or stayed idle for too long are not leased again
+		Thread evictor = new Thread(() -> {
+			while (true) {
+				try {
+					TimeUnit.SECONDS.sleep(5);
+				} catch (InterruptedException e) {
+					return;
+				}
+				MANAGER.closeExpiredConnections();
+				MANAGER.closeIdleConnections(KEEP_ALIVE, TimeUnit.MILLISECONDS);
+			}
+		}, "connection-evictor");
+		evictor.setDaemon(true);
+		evictor.start();
+		if (MEASURE) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(report()), "connection-report"));
+		}
+	}
+
+	private ConnectionPool() {
+
+	}
+
+	/**
+	 * @return the RestAssured configuration that sends every request through the pool
+	 */
+	public static HttpClientConfig httpClientConfig() {
+		return HttpClientConfig.httpClientConfig().httpClientFactory(CLIENTS::get);
+	}
+
+	/**
+	 * @return the number of requests, the share of them that reused a connection and the connect time per
+	 * request, if client.measure is set
+	 */
+	public static String report() {
+		long count = requests.sum();
+		long opened = connections.sum();
+		return String.format("HTTP connections (maxPerRoute= %d maxTotal= %d): requests= %d connections= %d "
+				+ "reuse= %.1f%% connect time per request: %s", MAX_PER_ROUTE, MAX_TOTAL, count, opened,
+				count == 0 ? 0 : 100.0 * (count - opened) / count, connectTimes);
+	}
+
+	public static long getRequestCount() {
+		return requests.sum();
+	}
+
+	public static long getConnectionCount() {
+		return connections.sum();
+	}
+
+	private static org.apache.http.impl.conn.PoolingClientConnectionManager createManager() {
+		org.apache.http.conn.scheme.SchemeRegistry registry = new org.apache.http.conn.scheme.SchemeRegistry();
+		registry.register(new org.apache.http.conn.scheme.Scheme("http", 80,
+				MEASURE ? new TimedSocketFactory() : org.apache.http.conn.scheme.PlainSocketFactory.getSocketFactory()));
+		registry.register(new org.apache.http.conn.scheme.Scheme("https", 443,
+				org.apache.http.conn.ssl.SSLSocketFactory.getSocketFactory()));
+		org.apache.http.impl.conn.PoolingClientConnectionManager manager =
+				new org.apache.http.impl.conn.PoolingClientConnectionManager(registry);
+		manager.setDefaultMaxPerRoute(MAX_PER_ROUTE);
+		manager.setMaxTotal(MAX_TOTAL);
+		return manager;
+	}
+
+	private static org.apache.http.impl.client.DefaultHttpClient createClient() {
+		org.apache.http.impl.client.DefaultHttpClient client = new org.apache.http.impl.client.DefaultHttpClient(MANAGER);
+		org.apache.http.params.HttpParams params = client.getParams();
+		org.apache.http.params.HttpConnectionParams.setTcpNoDelay(params, TCP_NO_DELAY);
+		org.apache.http.params.HttpConnectionParams.setConnectionTimeout(params, CONNECT_TIMEOUT);
+		org.apache.http.params.HttpConnectionParams.setSoTimeout(params, SOCKET_TIMEOUT);
+		client.setKeepAliveStrategy((response, context) -> {
+			long millis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return millis < 0 ? KEEP_ALIVE : millis;
+		});
+		// RestAssured reads a body only when the test asks for it, a body that is never read keeps its
+		// connection leased; a body that is read up front gives the connection back to the pool right away
+		client.addResponseInterceptor((response, context) -> {
+			HttpEntity entity = response.getEntity();
+			if (entity != null && entity.isStreaming()) {
+				response.setEntity(new BufferedHttpEntity(entity));
+			}
+		});
+		if (MEASURE) {
+			client.addRequestInterceptor(countRequest());
+		}
+		return client;
+	}
+
+	/**
+	 * Counts a request and the connection it opened, if any. The interceptor runs on the thread that sent the
+	 * request, after the connection is opened and before the request is written to it.
+	 */
+	private static HttpRequestInterceptor countRequest() {
+		return (request, context) -> {
+			HttpConnection connection = (HttpConnection) context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+			long[] nanos = connectNanos.get();
+			requests.increment();
+			if (connection != null && connection.getMetrics().getRequestCount() == 0) {
+				connections.increment();
+			}
+			connectTimes.recordNanos(nanos[0]);
+			nanos[0] = 0;
+		};
+	}
+
+	/**
+	 * Opens plain sockets and adds the time it took to the request of the thread.
+	 */
+	private static class TimedSocketFactory implements org.apache.http.conn.scheme.SchemeSocketFactory {
+		private final org.apache.http.conn.scheme.PlainSocketFactory sockets =
+				org.apache.http.conn.scheme.PlainSocketFactory.getSocketFactory();
+
+		@Override
+		public Socket createSocket(org.apache.http.params.HttpParams params) {
+			return sockets.createSocket(params);
+		}
+
+		@Override
+		public Socket connectSocket(Socket socket, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+				org.apache.http.params.HttpParams params) throws IOException, ConnectTimeoutException {
+			long start = System.nanoTime();
+			try {
+				return sockets.connectSocket(socket, remoteAddress, localAddress, params);
+			} finally {
+				connectNanos.get()[0] += System.nanoTime() - start;
+			}
+		}
+
+		@Override
+		public boolean isSecure(Socket socket) {
+			return false;
+		}
+	}
+
+}
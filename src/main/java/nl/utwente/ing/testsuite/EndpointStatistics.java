@@ -0,0 +1,202 @@
+package nl.utwente.ing.testsuite;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * RestAssured filter that records the latency and outcome of every request per endpoint.
+ * Endpoints are identified by the HTTP method and the path with ids replaced by {id},
+ * e.g. "GET /transactions/{id}".
+ * Errors are requests that got no response or a 5xx response. The suite sends invalid requests on purpose,
+ * so 4xx responses are counted apart as client errors.
+ */
+public class EndpointStatistics implements Filter {
+	/**
+	 * The status of a request that got no response.
+	 */
+	public static final int NO_RESPONSE = 0;
+
+	private static final Pattern ID_SEGMENT = Pattern.compile("/-?\\d+(?=/|$)");
+
+	private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+	public static class Endpoint {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder clientErrors = new LongAdder();
+
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		public long getRequests() {
+			return requests.sum();
+		}
+
+		/**
+		 * @return the requests that got no response or a 5xx response
+		 */
+		public long getErrors() {
+			return errors.sum();
+		}
+
+		/**
+		 * @return the requests that got a 4xx response
+		 */
+		public long getClientErrors() {
+			return clientErrors.sum();
+		}
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		String endpoint = normalize(requestSpec.getMethod(), requestSpec.getUserDefinedPath(),
+				requestSpec.getBasePath());
+		long start = System.nanoTime();
+		int status = NO_RESPONSE;
+		try {
+			Response response = ctx.next(requestSpec, responseSpec);
+			status = response.getStatusCode();
+			return response;
+		} finally {
+			record(endpoint, System.nanoTime() - start, status);
+		}
+	}
+
+	/**
+	 * Records a request that did not go through the filter.
+	 * @param endpoint the endpoint name, see {@link #normalize(String, String, String)}
+	 * @param nanos the latency of the request
+	 * @param status the status of the response, or {@link #NO_RESPONSE} if the request failed or the response
+	 * was not valid HTTP
+	 */
+	public void record(String endpoint, long nanos, int status) {
+		Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+		stats.latency.recordNanos(nanos);
+		stats.requests.increment();
+		if (status < 100 || status >= 500) {
+			stats.errors.increment();
+		} else if (status >= 400) {
+			stats.clientErrors.increment();
+		}
+	}
+
+	/**
+	 * Turns a request into an endpoint name, e.g. ("GET", "/transactions/12?session_id=3") becomes
+	 * "GET /transactions/{id}".
+	 * @param method the HTTP method
+	 * @param path the path as passed to RestAssured
+	 * @param basePath the base path that is stripped when the path starts with it
+	 * @return the endpoint name
+	 */
+	public static String normalize(String method, String path, String basePath) {
+		int query = path.indexOf('?');
+		if (query >= 0) {
+			path = path.substring(0, query);
+		}
+		if (basePath != null && !basePath.isEmpty() && !basePath.equals("/") && path.startsWith(basePath)) {
+			path = path.substring(basePath.length());
+		}
+		if (!path.startsWith("/")) {
+			path = "/" + path;
+		}
+		return method + " " + ID_SEGMENT.matcher(path).replaceAll("/{id}");
+	}
+
+	public Map<String, Endpoint> getEndpoints() {
+		return new TreeMap<>(endpoints);
+	}
+
+	/**
+	 * Writes the statistics per endpoint to a file, as CSV if its name ends with .csv and as JSON otherwise.
+	 * Latencies are in milliseconds, errors are no response or 5xx and clientErrors are 4xx.
+	 * @param file the file, its directory is created if needed
+	 * @param elapsedSeconds duration of the measurement, used to compute throughput
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file, double elapsedSeconds) throws IOException {
+		if (file.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+		}
+		String content;
+		if (file.getFileName().toString().endsWith(".csv")) {
+			StringBuilder csv = new StringBuilder("method,path,requests,req/s,errors,clientErrors,mean,p50,p90,p99,p99.9,max\n");
+			for (Map.Entry<String, Endpoint> entry : getEndpoints().entrySet()) {
+				Endpoint e = entry.getValue();
+				LatencyHistogram h = e.getLatency();
+				csv.append(entry.getKey().replace(' ', ',')).append(String.format(Locale.ROOT,
+						",%d,%.1f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f\n", e.getRequests(),
+						e.getRequests() / Math.max(elapsedSeconds, 1e-9), e.getErrors(), e.getClientErrors(),
+						h.getMean() / 1000.0,
+						h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+						h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+						h.getMax() / 1000.0));
+			}
+			content = csv.toString();
+		} else {
+			JSONArray json = new JSONArray();
+			for (Map.Entry<String, Endpoint> entry : getEndpoints().entrySet()) {
+				Endpoint e = entry.getValue();
+				LatencyHistogram h = e.getLatency();
+				String[] name = entry.getKey().split(" ", 2);
+				json.put(new JSONObject()
+						.put("method", name[0])
+						.put("path", name[1])
+						.put("requests", e.getRequests())
+						.put("requestsPerSecond", e.getRequests() / Math.max(elapsedSeconds, 1e-9))
+						.put("errors", e.getErrors())
+						.put("clientErrors", e.getClientErrors())
+						.put("mean", h.getMean() / 1000.0)
+						.put("p50", h.getValueAtPercentile(50) / 1000.0)
+						.put("p90", h.getValueAtPercentile(90) / 1000.0)
+						.put("p99", h.getValueAtPercentile(99) / 1000.0)
+						.put("p99.9", h.getValueAtPercentile(99.9) / 1000.0)
+						.put("max", h.getMax() / 1000.0));
+			}
+			content = new JSONObject().put("elapsedSeconds", elapsedSeconds).put("endpoints", json).toString(2);
+		}
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public void reset() {
+		endpoints.clear();
+	}
+
+	/**
+	 * Prints throughput, the rates of errors and of 4xx responses and latency percentiles per endpoint.
+	 * @param elapsedSeconds duration of the measurement, used to compute throughput
+	 */
+	public void report(double elapsedSeconds) {
+		System.out.println(String.format("%-40s %10s %10s %8s %8s %10s %10s %10s %10s %10s", "endpoint", "requests",
+				"req/s", "errors", "4xx", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+		for (Map.Entry<String, Endpoint> entry : getEndpoints().entrySet()) {
+			Endpoint e = entry.getValue();
+			LatencyHistogram h = e.getLatency();
+			System.out.println(String.format("%-40s %10d %10.1f %7.2f%% %7.2f%% %10.3f %10.3f %10.3f %10.3f %10.3f",
+					entry.getKey(), e.getRequests(), e.getRequests() / Math.max(elapsedSeconds, 1e-9),
+					100.0 * e.getErrors() / Math.max(1, e.getRequests()),
+					100.0 * e.getClientErrors() / Math.max(1, e.getRequests()),
+					h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+					h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0, h.getMax() / 1000.0));
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package nl.utwente.ing.testsuite;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reads a JSON array element by element into model objects, so only one element is in memory at a time
+ * instead of the whole response and its JsonPath tree.
+ * The elements are parsed while they are consumed, which lets assertions run as a pipeline over the response:
+ * <pre>
+ * try (Stream&lt;Transaction&gt; transactions = JsonListReader.get(session, "/transactions", Transaction.class).stream()) {
+ *     transactions.forEach(t -&gt; assertTrue(t.validTransaction()));
+ * }
+ * </pre>
+ */
+public class JsonListReader<T> implements Iterator<T>, Closeable {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final JsonParser parser;
+	private final ObjectReader reader;
+	private T next;
+	private boolean finished;
+
+	/**
+	 * @param in a stream that contains a JSON array, closed when the reader is closed
+	 * @param type the class of the elements
+	 * @throws IOException if the stream does not start with a JSON array
+	 */
+	public JsonListReader(InputStream in, Class<T> type) throws IOException {
+		this.parser = MAPPER.getFactory().createParser(in);
+		this.reader = MAPPER.readerFor(type);
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			parser.close();
+			throw new IOException("Expected a JSON array but found " + parser.getCurrentToken());
+		}
+	}
+
+	/**
+	 * Requests a list endpoint and reads the response body while it is received.
+	 * The request bypasses RestAssured, which buffers the complete body before it can be read, so its latency
+	 * up to the start of the body is recorded in the statistics of {@link TestClient} here.
+	 * @param sessionId the session to send in the X-session-ID header
+	 * @param path the path of the list endpoint, including the query
+	 * @param type the class of the elements
+	 * @return a reader over the elements of the response
+	 * @throws UncheckedIOException if the request fails or the response is not a JSON array
+	 */
+	public static <T> JsonListReader<T> get(String sessionId, String path, Class<T> type) {
+		long start = System.nanoTime();
+		int status = EndpointStatistics.NO_RESPONSE;
+		try {
+			HttpURLConnection connection = (HttpURLConnection) TestClient.url(path).openConnection();
+			connection.setRequestProperty("X-session-ID", sessionId);
+			connection.setRequestProperty("Accept", "application/json");
+			status = connection.getResponseCode();
+			if (status != HttpURLConnection.HTTP_OK) {
+				connection.disconnect();
+				throw new IOException("GET " + path + " returned " + status);
+			}
+			return new JsonListReader<>(connection.getInputStream(), type);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			TestClient.getStatistics().record(EndpointStatistics.normalize("GET", path, null),
+					System.nanoTime() - start, status);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			try {
+				if (parser.nextToken() == JsonToken.END_ARRAY) {
+					finished = true;
+					close();
+				} else {
+					next = reader.readValue(parser);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T element = next;
+		next = null;
+		return element;
+	}
+
+	/**
+	 * @return a sequential stream over the remaining elements that closes the reader when it is closed
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+				false).onClose(() -> {
+					try {
+						close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	@Override
+	public void close() throws IOException {
+		parser.close();
+	}
+}
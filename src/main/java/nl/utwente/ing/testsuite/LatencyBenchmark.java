@@ -0,0 +1,154 @@
+package nl.utwente.ing.testsuite;
+
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a request repeatedly and records every sample in a {@link LatencyHistogram}.
+ * The benchmark is configured with system properties so it can be tuned per environment:
+ * <ul>
+ * <li>benchmark.warmup: number of unrecorded requests before measuring (default 5)</li>
+ * <li>benchmark.iterations: number of recorded requests (default 20)</li>
+ * <li>benchmark.concurrency: number of threads issuing requests (default 1)</li>
+ * <li>benchmark.budget.p50, .p90, .p99, .p99.9, .max: upper bounds in milliseconds (default none)</li>
+ * </ul>
+ */
+public class LatencyBenchmark {
+	private static final String PREFIX = "benchmark.";
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private final int warmup;
+	private final int iterations;
+	private final int concurrency;
+	// Budget in milliseconds per percentile, a percentile of 100 stands for the maximum
+	private final Map<Double, Double> budgets = new LinkedHashMap<>();
+
+	public LatencyBenchmark(int warmup, int iterations, int concurrency) {
+		if (iterations < 1 || concurrency < 1 || warmup < 0) {
+			throw new IllegalArgumentException("Invalid benchmark configuration");
+		}
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Creates a benchmark from the benchmark.* system properties.
+	 * @param defaultIterations number of iterations used when benchmark.iterations is not set
+	 * @return the configured benchmark
+	 */
+	public static LatencyBenchmark fromSystemProperties(int defaultIterations) {
+		LatencyBenchmark benchmark = new LatencyBenchmark(
+				Integer.getInteger(PREFIX + "warmup", 5),
+				Integer.getInteger(PREFIX + "iterations", defaultIterations),
+				Integer.getInteger(PREFIX + "concurrency", 1));
+		for (double percentile : PERCENTILES) {
+			String budget = System.getProperty(PREFIX + "budget.p" + percentileName(percentile));
+			if (budget != null) {
+				benchmark.withBudget(percentile, Double.parseDouble(budget));
+			}
+		}
+		String maxBudget = System.getProperty(PREFIX + "budget.max");
+		if (maxBudget != null) {
+			benchmark.withBudget(100, Double.parseDouble(maxBudget));
+		}
+		return benchmark;
+	}
+
+	/**
+	 * Sets the maximum allowed latency for a percentile.
+	 * @param percentile percentile between 0 and 100, where 100 is the maximum
+	 * @param millis the budget in milliseconds
+	 * @return this benchmark
+	 */
+	public LatencyBenchmark withBudget(double percentile, double millis) {
+		budgets.put(percentile, millis);
+		return this;
+	}
+
+	/**
+	 * Runs the warmup and the measured iterations spread over the configured number of threads.
+	 * @param request the request to measure, it should throw when the request fails
+	 * @return histogram with one sample per measured iteration
+	 */
+	public LatencyHistogram run(Runnable request) {
+		LatencyHistogram histogram = new LatencyHistogram();
+		ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+		try {
+			execute(executor, request, warmup, null);
+			execute(executor, request, iterations, histogram);
+		} finally {
+			executor.shutdownNow();
+		}
+		return histogram;
+	}
+
+	private void execute(ExecutorService executor, Runnable request, int count, LatencyHistogram histogram) {
+		if (count == 0) {
+			return;
+		}
+		AtomicInteger remaining = new AtomicInteger(count);
+		List<Callable<Void>> workers = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			workers.add(() -> {
+				while (remaining.getAndDecrement() > 0) {
+					long start = System.nanoTime();
+					request.run();
+					if (histogram != null) {
+						histogram.recordNanos(System.nanoTime() - start);
+					}
+				}
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> future : executor.invokeAll(workers)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Benchmark interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException("Benchmark request failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Prints the percentiles of the histogram and fails if any configured budget is exceeded.
+	 * @param name name of the benchmarked request used in the report
+	 * @param histogram the recorded samples
+	 */
+	public void report(String name, LatencyHistogram histogram) {
+		System.out.println(name + " (warmup= " + warmup + " iterations= " + iterations
+				+ " concurrency= " + concurrency + "): " + histogram);
+		List<String> violations = new ArrayList<>();
+		for (Map.Entry<Double, Double> budget : budgets.entrySet()) {
+			double percentile = budget.getKey();
+			long micros = percentile >= 100 ? histogram.getMax() : histogram.getValueAtPercentile(percentile);
+			if (micros / 1000.0 > budget.getValue()) {
+				violations.add((percentile >= 100 ? "max" : "p" + percentileName(percentile)) + " = "
+						+ micros / 1000.0 + "ms exceeds budget of " + budget.getValue() + "ms");
+			}
+		}
+		if (!violations.isEmpty()) {
+			fail(name + ": " + String.join(", ", violations));
+		}
+	}
+
+	private static String percentileName(double percentile) {
+		return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+	}
+}
@@ -0,0 +1,137 @@
+package nl.utwente.ing.testsuite;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR-style histogram for latency samples in microseconds.
+ * Values below 2^SUB_BUCKET_BITS are stored exactly, larger values are stored in
+ * log-linear buckets with a relative error of at most 2^-(SUB_BUCKET_BITS - 1) (about 0.1%).
+ * Recording is lock-free so one histogram can be shared by concurrent workers.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 11;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+	// One hour is the highest value that gets its own bucket, anything above is clamped
+	private static final long HIGHEST_TRACKABLE_VALUE = 3_600_000_000L;
+
+	private final AtomicLongArray counts;
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalValue = new LongAdder();
+	private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong maxValue = new AtomicLong(0);
+
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(bucketIndex(HIGHEST_TRACKABLE_VALUE) + 1);
+	}
+
+	/**
+	 * Records a single sample.
+	 * @param micros latency in microseconds, negative values are recorded as 0
+	 */
+	public void record(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(bucketIndex(Math.min(value, HIGHEST_TRACKABLE_VALUE)));
+		totalCount.increment();
+		totalValue.add(value);
+		minValue.accumulateAndGet(value, Math::min);
+		maxValue.accumulateAndGet(value, Math::max);
+	}
+
+	public void recordNanos(long nanos) {
+		record(nanos / 1000);
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	public long getMin() {
+		return getCount() == 0 ? 0 : minValue.get();
+	}
+
+	public long getMax() {
+		return maxValue.get();
+	}
+
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) totalValue.sum() / count;
+	}
+
+	/**
+	 * Returns the value at the given percentile, rounded up to the highest value
+	 * that falls in the same bucket (never higher than the recorded maximum).
+	 * @param percentile a percentile between 0 and 100
+	 * @return latency in microseconds
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestEquivalentValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Adds all samples of another histogram to this one.
+	 * @param other the histogram to merge into this one
+	 */
+	public void add(LatencyHistogram other) {
+		for (int i = 0; i < counts.length(); i++) {
+			long c = other.counts.get(i);
+			if (c != 0) {
+				counts.addAndGet(i, c);
+			}
+		}
+		totalCount.add(other.totalCount.sum());
+		totalValue.add(other.totalValue.sum());
+		if (other.getCount() > 0) {
+			minValue.accumulateAndGet(other.minValue.get(), Math::min);
+			maxValue.accumulateAndGet(other.maxValue.get(), Math::max);
+		}
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS + 1;
+		return exponent * SUB_BUCKET_HALF_COUNT + (int) (value >>> exponent);
+	}
+
+	static long lowestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+		return ((long) (index - exponent * SUB_BUCKET_HALF_COUNT)) << exponent;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+		return lowestEquivalentValue(index) + (1L << exponent) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count= %d mean= %.3fms p50= %.3fms p90= %.3fms p99= %.3fms p99.9= %.3fms max= %.3fms",
+				getCount(), getMean() / 1000.0,
+				getValueAtPercentile(50) / 1000.0, getValueAtPercentile(90) / 1000.0,
+				getValueAtPercentile(99) / 1000.0, getValueAtPercentile(99.9) / 1000.0,
+				getMax() / 1000.0);
+	}
+}
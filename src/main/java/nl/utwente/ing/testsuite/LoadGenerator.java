@@ -0,0 +1,141 @@
+package nl.utwente.ing.testsuite;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open-model load generator that starts new sessions at a fixed arrival rate, independent of how fast
+ * earlier sessions complete, and replays one {@link LoadScenario} in each of them.
+ * Run it with java nl.utwente.ing.testsuite.LoadGenerator and the following system properties:
+ * <ul>
+ * <li>load.rate: new sessions per second (default 10)</li>
+ * <li>load.duration: seconds during which sessions are started (default 60)</li>
+ * <li>load.maxSessions: maximum number of sessions in flight, arrivals above it are dropped (default 1000)</li>
+ * <li>load.scenarios: comma separated scenario names (default all scenarios, in turn)</li>
+ * </ul>
+ */
+public class LoadGenerator {
+	private static final long TICK_MILLIS = 10;
+
+	private final double rate;
+	private final long durationSeconds;
+	private final int maxSessions;
+	private final LoadScenario[] scenarios;
+	private final EndpointStatistics statistics = new EndpointStatistics();
+	private final Map<LoadScenario, ScenarioStatistics> scenarioStatistics = new EnumMap<>(LoadScenario.class);
+	private final LongAdder dropped = new LongAdder();
+
+	private static class ScenarioStatistics {
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder started = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+	}
+
+	public LoadGenerator(double rate, long durationSeconds, int maxSessions, LoadScenario... scenarios) {
+		if (rate <= 0 || durationSeconds <= 0 || maxSessions < 1 || scenarios.length == 0) {
+			throw new IllegalArgumentException("Invalid load configuration");
+		}
+		this.rate = rate;
+		this.durationSeconds = durationSeconds;
+		this.maxSessions = maxSessions;
+		this.scenarios = scenarios;
+		for (LoadScenario scenario : scenarios) {
+			scenarioStatistics.put(scenario, new ScenarioStatistics());
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		List<LoadScenario> scenarios = new ArrayList<>();
+		String names = System.getProperty("load.scenarios");
+		if (names == null) {
+			for (LoadScenario scenario : LoadScenario.values()) {
+				scenarios.add(scenario);
+			}
+		} else {
+			for (String name : names.split(",")) {
+				scenarios.add(LoadScenario.valueOf(name.trim().toUpperCase()));
+			}
+		}
+		LoadGenerator generator = new LoadGenerator(
+				Double.parseDouble(System.getProperty("load.rate", "10")),
+				Long.getLong("load.duration", 60),
+				Integer.getInteger("load.maxSessions", 1000),
+				scenarios.toArray(new LoadScenario[0]));
+		generator.run();
+	}
+
+	/**
+	 * Starts sessions for the configured duration, waits for the sessions in flight and prints a report.
+	 * @return the per-endpoint statistics of the run
+	 * @throws InterruptedException when interrupted while waiting for the sessions in flight
+	 */
+	public EndpointStatistics run() throws InterruptedException {
+		ExecutorService workers = Executors.newCachedThreadPool();
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		Semaphore inFlight = new Semaphore(maxSessions);
+		AtomicLong launched = new AtomicLong();
+		long start = System.nanoTime();
+
+		// Every tick starts the sessions that should have arrived by now, so arrivals do not depend on completions
+		scheduler.scheduleAtFixedRate(() -> {
+			long due = (long) (rate * (System.nanoTime() - start) / 1e9);
+			while (launched.get() < due) {
+				LoadScenario scenario = scenarios[(int) (launched.getAndIncrement() % scenarios.length)];
+				if (!inFlight.tryAcquire()) {
+					dropped.increment();
+					continue;
+				}
+				workers.execute(() -> {
+					try {
+						runScenario(scenario);
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+		}, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+		Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+		scheduler.shutdownNow();
+		scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		workers.shutdown();
+		if (!workers.awaitTermination(5, TimeUnit.MINUTES)) {
+			System.out.println("Sessions still running after 5 minutes: " + (maxSessions - inFlight.availablePermits()));
+		}
+		report((System.nanoTime() - start) / 1e9);
+		return statistics;
+	}
+
+	private void runScenario(LoadScenario scenario) {
+		ScenarioStatistics stats = scenarioStatistics.get(scenario);
+		stats.started.increment();
+		long start = System.nanoTime();
+		try {
+			scenario.run(statistics);
+		} catch (Throwable t) {
+			stats.failed.increment();
+		} finally {
+			stats.latency.recordNanos(System.nanoTime() - start);
+		}
+	}
+
+	private void report(double elapsedSeconds) {
+		System.out.println(String.format("Load run: rate= %.1f/s duration= %ds maxSessions= %d elapsed= %.1fs dropped= %d",
+				rate, durationSeconds, maxSessions, elapsedSeconds, dropped.sum()));
+		for (Map.Entry<LoadScenario, ScenarioStatistics> entry : scenarioStatistics.entrySet()) {
+			ScenarioStatistics stats = entry.getValue();
+			System.out.println(String.format("%-20s sessions= %d failed= %d session latency: %s", entry.getKey(),
+					stats.started.sum(), stats.failed.sum(), stats.latency));
+		}
+		statistics.report(elapsedSeconds);
+	}
+}
@@ -0,0 +1,203 @@
+package nl.utwente.ing.testsuite;
+
+import static nl.utwente.ing.testsuite.TestClient.given;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.json.JSONObject;
+
+import io.restassured.filter.Filter;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * The flows of the test classes as they are replayed by the {@link LoadGenerator}.
+ * Every flow runs in a fresh session and only performs valid requests, so any error response is a failure.
+ */
+public enum LoadScenario {
+	/**
+	 * The fixture of BaseSystemTest: categories, a category rule and a batch of transactions.
+	 */
+	TRANSACTIONS {
+		@Override
+		void run(Filter filter) {
+			String session = getNewSession(filter);
+			String categoryId = null;
+			for (int i = 0; i < 5; i++) {
+				categoryId = postObject(filter, session, "categories", new JSONObject().put("name", "test"))
+						.jsonPath().getString("id");
+			}
+			postObject(filter, session, "categoryRules", new JSONObject()
+					.put("description", "")
+					.put("iBAN", "testIBAN")
+					.put("type", "deposit")
+					.put("category_id", categoryId));
+			request(filter, session).get("/categories").then().statusCode(200);
+			JSONObject transaction = new JSONObject()
+					.put("date", PaymentRequestTest.getDateString(Instant.now()))
+					.put("amount", 10.0)
+					.put("externalIBAN", "testIBAN")
+					.put("type", "deposit");
+			String transactionId = null;
+			for (int i = 0; i < 25; i++) {
+				transactionId = postObject(filter, session, "transactions", transaction).jsonPath().getString("id");
+			}
+			request(filter, session).get("/transactions").then().statusCode(200);
+			request(filter, session).get("/transactions/" + transactionId).then().statusCode(200);
+			request(filter, session).
+				body(new JSONObject().put("category_id", categoryId).toString()).
+			when().
+				patch("/transactions/" + transactionId + "/category").
+			then().
+				statusCode(200);
+			request(filter, session).get("/balance/history?interval=hour&intervals=200").then().statusCode(200);
+		}
+	},
+	/**
+	 * CategoryRuleTest.testAutoCategorization: a rule that categorizes new transactions.
+	 */
+	CATEGORY_RULES {
+		@Override
+		void run(Filter filter) {
+			String session = getNewSession(filter);
+			int categoryId = postObject(filter, session, "categories", new JSONObject().put("name", "test"))
+					.jsonPath().getInt("id");
+			postObject(filter, session, "categoryRules", new JSONObject()
+					.put("description", "Testing Auto Categorization")
+					.put("iBAN", "NL12ABNA0457688830")
+					.put("type", "withdrawal")
+					.put("category_id", categoryId)
+					.put("applyOnHistory", false));
+			JSONObject transaction = new JSONObject()
+					.put("date", "2018-04-08T21:15:55.450Z")
+					.put("amount", 201.03)
+					.put("externalIBAN", "NL12ABNA0457688830")
+					.put("description", "Testing Auto Categorization")
+					.put("type", "withdrawal");
+			for (int i = 0; i < 5; i++) {
+				postObject(filter, session, "transactions", transaction);
+			}
+			request(filter, session).get("/categoryRules").then().statusCode(200);
+			request(filter, session).get("/transactions?category=" + categoryId).then().statusCode(200);
+		}
+	},
+	/**
+	 * SavingGoalsTest.testScenario: a saving goal that puts money aside at a month boundary.
+	 */
+	SAVING_GOALS {
+		@Override
+		void run(Filter filter) {
+			String session = getNewSession(filter);
+			postObject(filter, session, "transactions", new JSONObject()
+					.put("date", "2018-02-01T00:00Z")
+					.put("amount", 1000.0)
+					.put("externalIBAN", "TestIban")
+					.put("description", "")
+					.put("type", "deposit"));
+			postObject(filter, session, "savingGoals", new JSONObject()
+					.put("name", "Saving Goal")
+					.put("goal", 1000.0)
+					.put("savePerMonth", 400.0)
+					.put("minBalanceRequired", 0.0));
+			postObject(filter, session, "transactions", new JSONObject()
+					.put("date", "2018-03-01T00:00Z")
+					.put("amount", 1.0)
+					.put("externalIBAN", "TestIban")
+					.put("description", "")
+					.put("type", "deposit"));
+			request(filter, session).get("/savingGoals").then().statusCode(200);
+			request(filter, session).get("/balance/history?interval=month&intervals=12").then().statusCode(200);
+		}
+	},
+	/**
+	 * PaymentRequestTest.testWithTransactions: a payment request filled by two matching deposits.
+	 */
+	PAYMENT_REQUESTS {
+		@Override
+		void run(Filter filter) {
+			String session = getNewSession(filter);
+			Instant now = Instant.now();
+			postObject(filter, session, "paymentRequests", new JSONObject()
+					.put("description", "Load test payment request")
+					.put("due_date", PaymentRequestTest.getDateString(now.plus(1, ChronoUnit.HOURS)))
+					.put("amount", 12345.67)
+					.put("number_of_requests", 2));
+			JSONObject transaction = new JSONObject()
+					.put("date", PaymentRequestTest.getDateString(now))
+					.put("amount", 12345.67)
+					.put("externalIBAN", "TestIban")
+					.put("description", "")
+					.put("type", "deposit");
+			postObject(filter, session, "transactions", transaction);
+			postObject(filter, session, "transactions", transaction);
+			request(filter, session).get("/paymentRequests").then().statusCode(200);
+		}
+	},
+	/**
+	 * MessageTest.testNegativeBalance, testReadMessage and MessageRuleTest: a warning that is read afterwards.
+	 */
+	MESSAGES {
+		@Override
+		void run(Filter filter) {
+			String session = getNewSession(filter);
+			JSONObject transaction = new JSONObject()
+					.put("date", PaymentRequestTest.getDateString(Instant.now()))
+					.put("amount", 50.0)
+					.put("externalIBAN", "TestIban")
+					.put("description", "")
+					.put("type", "deposit");
+			postObject(filter, session, "transactions", transaction);
+			transaction.put("amount", 100.0).put("type", "withdrawal");
+			postObject(filter, session, "transactions", transaction);
+			int categoryId = postObject(filter, session, "categories", new JSONObject().put("name", "test"))
+					.jsonPath().getInt("id");
+			postObject(filter, session, "messageRules", new JSONObject()
+					.put("type", "info")
+					.put("value", 200.0)
+					.put("category_id", categoryId));
+			Response messages = request(filter, session).get("/messages");
+			messages.then().statusCode(200);
+			for (Object id : messages.jsonPath().getList("id")) {
+				request(filter, session).put("/messages/" + id).then().statusCode(200);
+			}
+			request(filter, session).get("/messages").then().statusCode(200);
+		}
+	};
+
+	/**
+	 * Runs the flow in a new session.
+	 * @param filter filter added to every request, used to record statistics
+	 */
+	abstract void run(Filter filter);
+
+	private static RequestSpecification request(Filter filter, String session) {
+		return given().
+			filter(filter).
+			header("X-session-ID", session).
+			contentType(ContentType.JSON);
+	}
+
+	private static String getNewSession(Filter filter) {
+		return given().
+				filter(filter).
+		        contentType("application/json").
+		when().
+		        post("/sessions").
+		then().
+				contentType(ContentType.JSON).
+		extract().
+				response().jsonPath().getString("id");
+	}
+
+	private static Response postObject(Filter filter, String session, String uri, JSONObject object) {
+		Response response = request(filter, session).
+			body(object.toString()).
+		when().
+			post("/" + uri);
+		response.then().
+			assertThat().statusCode(201);
+		return response;
+	}
+}
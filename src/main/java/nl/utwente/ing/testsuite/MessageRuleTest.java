@@ -1,11 +1,11 @@
 package nl.utwente.ing.testsuite;
 
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.response.Response;
 import nl.utwente.ing.model.Message;
 import nl.utwente.ing.model.MessageRule;
+import nl.utwente.ing.model.Transaction;
 import org.json.JSONObject;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -15,20 +15,22 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
-import static io.restassured.RestAssured.given;
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class MessageRuleTest {
-	private static String testSessionId;
+	private String testSessionId;
 	private static Instant now;
 	private static String nowString;
 	
 	@BeforeClass
 	public static void before() {
-		RestAssured.basePath = "/api/v1";
 		now = Instant.now();
 		nowString = getDateString(now);
 		
@@ -354,6 +356,138 @@ public class MessageRuleTest {
 		// There should no new messages that the threshold has been crossed
 		checkGetRequest(messages, testSessionId);
 	}
-	
-	
+
+
+	@Test
+	public void testManyCategories() {
+		/*
+		A large history of categorized withdrawals is imported, spread over many categories that all have a
+		message rule that the history stays below. Then withdrawals that reach the threshold on their own are
+		posted, and the latency of those requests, which add the message, is measured. The size is set with
+		the spending.transactions and spending.categories system properties, e.g. 100000 and 1000 for a large
+		session, the latency budgets with the benchmark.* system properties.
+		 */
+		int nrTransactions = Integer.getInteger("spending.transactions", 2000);
+		int nrCategories = Integer.getInteger("spending.categories", 50);
+		double threshold = 1000.0;
+		testSessionId = getNewSession();
+		
+		int[] categoryIds = new int[nrCategories];
+		for (int i = 0; i < nrCategories; i++) {
+			categoryIds[i] = postObject(new JSONObject().put("name", "Category " + i), "categories", testSessionId)
+					.as(nl.utwente.ing.model.Category.class).getId();
+			postObject(new JSONObject()
+					.put("description", "Category " + i + " spending")
+					.put("iBAN", "")
+					.put("type", "withdrawal")
+					.put("category_id", categoryIds[i]), "categoryRules", testSessionId);
+			postObject(new JSONObject()
+					.put("type", "warning")
+					.put("value", threshold)
+					.put("category_id", categoryIds[i]), "messageRules", testSessionId);
+		}
+		
+		// One year of history in order of date, a category spends far less than the threshold in 30 days
+		Random random = new Random(nrTransactions);
+		Instant start = now.minus(365, ChronoUnit.DAYS);
+		List<String> transactions = new ArrayList<>();
+		for (int i = 0; i < nrTransactions; i++) {
+			Instant date = start.plusSeconds(ChronoUnit.DAYS.getDuration().getSeconds() * 365 * i / nrTransactions);
+			Transaction transaction = new Transaction(0, getDateString(date), 1 + random.nextInt(100) / 100.0,
+					"NL12ABNA0457688830", "withdrawal", null);
+			transaction.setDescription("Category " + random.nextInt(nrCategories) + " spending");
+			transactions.add(transaction.toStringData());
+		}
+		long importStart = System.nanoTime();
+		new TransactionImporter(testSessionId).importValidBodies(transactions);
+		double seconds = (System.nanoTime() - importStart) / 1e9;
+		System.out.println(String.format("Imported %d transactions over %d categories in %.1fs (%.0f/s)",
+				nrTransactions, nrCategories, seconds, nrTransactions / Math.max(seconds, 1e-9)));
+		
+		// Every measured withdrawal reaches the threshold of its category and adds exactly one message
+		int[] posted = new int[nrCategories];
+		JSONObject withdrawal = new JSONObject()
+				.put("date", nowString)
+				.put("amount", threshold)
+				.put("externalIBAN", "NL12ABNA0457688830")
+				.put("type", "withdrawal");
+		LatencyBenchmark benchmark = LatencyBenchmark.fromSystemProperties(200);
+		LatencyHistogram histogram = benchmark.run(() -> {
+			int category;
+			synchronized (posted) {
+				category = random.nextInt(nrCategories);
+				posted[category]++;
+			}
+			postObject(new JSONObject(withdrawal.toString()).put("description", "Category " + category + " spending"),
+					"transactions", testSessionId);
+		});
+		benchmark.report("POST /transactions reaching a message rule with " + nrCategories + " categories", histogram);
+		// The average response time should stay below one second
+		assertTrue((long)(histogram.getMean() / 1000) < 1000);
+		
+		Map<String, Integer> messaged = new HashMap<>();
+		Message[] messages = given().
+				contentType("application/json").
+				header("X-session-ID", testSessionId).
+			when().
+				get("/messages").
+			as(Message[].class);
+		for (Message message : messages) {
+			messaged.merge(message.getMessage(), 1, Integer::sum);
+		}
+		for (int i = 0; i < nrCategories; i++) {
+			assertEquals("Category " + i, posted[i], (int) messaged.getOrDefault("Spending exceeded threshold of "
+					+ threshold + " on category with id " + categoryIds[i] + ".", 0));
+		}
+	}
+
+	/**
+	 * Checks that the ETag of the message rules changes with every rule that is added and that the ETag of the
+	 * messages only changes when a withdrawal reaches the value of a rule.
+	 */
+	@Test
+	public void testConditionalGet() {
+		testSessionId = getNewSession();
+		ConditionalCache cache = new ConditionalCache();
+		cache.assertChanged(testSessionId, "/messageRules");
+		cache.assertChanged(testSessionId, "/messages");
+
+		int categoryId = postObject(new JSONObject().put("name", "Shopping"), "categories", testSessionId)
+				.as(nl.utwente.ing.model.Category.class).getId();
+		postObject(new JSONObject()
+				.put("description", "Shop")
+				.put("iBAN", "")
+				.put("type", "withdrawal")
+				.put("category_id", categoryId)
+				.put("applyOnHistory", false), "categoryRules", testSessionId);
+		cache.assertUnchanged(testSessionId, "/messageRules");
+		postObject(new JSONObject().put("type", "warning").put("value", 200.0).put("category_id", categoryId),
+				"messageRules", testSessionId);
+		cache.assertChanged(testSessionId, "/messageRules");
+
+		// An invalid rule is not added
+		given().
+			header("X-session-ID", testSessionId).
+			header("Content-Type", "application/JSON").
+			body(new JSONObject().put("type", "warning").toString()).
+		when().
+			post("/messageRules").
+		then().
+			assertThat().statusCode(405);
+		cache.assertUnchanged(testSessionId, "/messageRules");
+
+		JSONObject transaction = new JSONObject()
+				.put("date", nowString)
+				.put("amount", 1000.0)
+				.put("externalIBAN", "NL12ABNA0457688830")
+				.put("description", "Salary")
+				.put("type", "deposit");
+		postObject(transaction, "transactions", testSessionId);
+		postObject(transaction.put("amount", 150.0).put("description", "Shop").put("type", "withdrawal"),
+				"transactions", testSessionId);
+		cache.assertUnchanged(testSessionId, "/messages");
+		postObject(transaction.put("amount", 50.0), "transactions", testSessionId);
+		cache.assertChanged(testSessionId, "/messages");
+		cache.assertUnchanged(testSessionId, "/messageRules");
+	}
 }
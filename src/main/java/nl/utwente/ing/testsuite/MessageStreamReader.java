@@ -0,0 +1,255 @@
+package nl.utwente.ing.testsuite;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.utwente.ing.model.Message;
+
+/**
+ * Receives the messages of a session from GET /messages/stream, the server-sent events stream of messages.
+ * The stream is read by a background thread that queues every message with the time it arrived, so a test
+ * can act on the session and then wait for exactly the messages it expects:
+ * <pre>
+ * try (MessageStreamReader stream = MessageStreamReader.open(session)) {
+ *     postTransaction(...);
+ *     assertEquals("Balance dropped below zero!", stream.next(5, TimeUnit.SECONDS).getMessage().getMessage());
+ *     stream.assertQuiet(200);
+ * }
+ * </pre>
+ * A closed stream is resumed by opening a new one with the id of the last event that was received.
+ * The stream has its own connection, which is aborted on close so the reading thread stops right away.
+ */
+public class MessageStreamReader implements Closeable {
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final CloseableHttpClient client;
+	private final HttpGet request;
+	private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private volatile IOException failure;
+	private volatile boolean closed;
+	private int lastEventId;
+
+	/**
+	 * A message received from the stream.
+	 */
+	public static class Event {
+		private final int id;
+		private final Message message;
+		private final long receivedNanos;
+
+		Event(int id, Message message, long receivedNanos) {
+			this.id = id;
+			this.message = message;
+			this.receivedNanos = receivedNanos;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public Message getMessage() {
+			return message;
+		}
+
+		/**
+		 * @return the value of {@link System#nanoTime()} when the event was received
+		 */
+		public long getReceivedNanos() {
+			return receivedNanos;
+		}
+	}
+
+	private MessageStreamReader(CloseableHttpClient client, HttpGet request, CloseableHttpResponse response,
+			int lastEventId) throws IOException {
+		this.client = client;
+		this.request = request;
+		this.lastEventId = lastEventId;
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
+		this.thread = new Thread(() -> read(reader), "message-stream-reader");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Opens the stream of all messages of a session.
+	 */
+	public static MessageStreamReader open(String sessionId) {
+		return open(sessionId, 0);
+	}
+
+	/**
+	 * Opens the stream of a session after the given event.
+	 * @param sessionId the session to send in the X-session-ID header
+	 * @param lastEventId the id of the last received message, sent as Last-Event-ID, or 0 for all messages
+	 * @throws UncheckedIOException if the stream cannot be opened
+	 */
+	public static MessageStreamReader open(String sessionId, int lastEventId) {
+		CloseableHttpClient client = HttpClients.createMinimal();
+		// The latency up to the start of the stream is recorded, the stream itself stays open
+		long start = System.nanoTime();
+		int status = EndpointStatistics.NO_RESPONSE;
+		try {
+			HttpGet request = new HttpGet(TestClient.url("/messages/stream").toURI());
+			request.setHeader("X-session-ID", sessionId);
+			request.setHeader("Accept", "text/event-stream");
+			if (lastEventId > 0) {
+				request.setHeader("Last-Event-ID", String.valueOf(lastEventId));
+			}
+			CloseableHttpResponse response = client.execute(request);
+			status = response.getStatusLine().getStatusCode();
+			if (status != HttpStatus.SC_OK) {
+				response.close();
+				throw new IOException("GET /messages/stream returned " + status);
+			}
+			return new MessageStreamReader(client, request, response, lastEventId);
+		} catch (IOException e) {
+			closeQuietly(client);
+			throw new UncheckedIOException(e);
+		} catch (URISyntaxException e) {
+			closeQuietly(client);
+			throw new IllegalArgumentException(e);
+		} finally {
+			TestClient.getStatistics().record(EndpointStatistics.normalize("GET", "/messages/stream", null),
+					System.nanoTime() - start, status);
+		}
+	}
+
+	/**
+	 * Waits for the next message.
+	 * @return the next event, or null if none arrived within the timeout
+	 * @throws UncheckedIOException if the stream failed before a message arrived
+	 */
+	public Event next(long timeout, TimeUnit unit) {
+		Event event;
+		try {
+			event = events.poll(timeout, unit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a message", e);
+		}
+		if (event == null && failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+		if (event != null) {
+			lastEventId = event.getId();
+		}
+		return event;
+	}
+
+	/**
+	 * Waits for a number of messages.
+	 * @param count the number of messages
+	 * @param timeoutMillis the time to wait for all of them
+	 * @return the messages in order of arrival
+	 * @throws AssertionError if fewer messages arrived
+	 */
+	public List<Message> take(int count, long timeoutMillis) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		List<Message> messages = new ArrayList<>();
+		while (messages.size() < count) {
+			Event event = next(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+			if (event == null) {
+				throw new AssertionError("Received " + messages.size() + " of " + count + " messages within "
+						+ timeoutMillis + "ms");
+			}
+			messages.add(event.getMessage());
+		}
+		return messages;
+	}
+
+	/**
+	 * Checks that no message arrives for some time.
+	 * @throws AssertionError if a message arrived
+	 */
+	public void assertQuiet(long millis) {
+		Event event = next(millis, TimeUnit.MILLISECONDS);
+		if (event != null) {
+			throw new AssertionError("Unexpected message " + event.getId() + ": " + event.getMessage().getMessage());
+		}
+	}
+
+	/**
+	 * @return the id of the last message that was taken from the stream, to resume it with
+	 */
+	public int getLastEventId() {
+		return lastEventId;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		request.abort();
+		closeQuietly(client);
+	}
+
+	private static void closeQuietly(CloseableHttpClient client) {
+		try {
+			client.close();
+		} catch (IOException e) {
+			// Nothing is read from a closed stream anymore
+		}
+	}
+
+	/**
+	 * Parses the events: lines of fields, ended by an empty line. Comments and other event types are skipped.
+	 */
+	private void read(BufferedReader reader) {
+		String id = null;
+		String name = "message";
+		StringBuilder data = new StringBuilder();
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.isEmpty()) {
+					if (data.length() > 0 && name.equals("message")) {
+						Message message = MAPPER.readValue(data.toString(), Message.class);
+						events.add(new Event(id == null ? message.getId() : Integer.parseInt(id), message,
+								System.nanoTime()));
+					}
+					id = null;
+					name = "message";
+					data.setLength(0);
+				} else if (line.startsWith("id:")) {
+					id = field(line);
+				} else if (line.startsWith("event:")) {
+					name = field(line);
+				} else if (line.startsWith("data:")) {
+					if (data.length() > 0) {
+						data.append('\n');
+					}
+					data.append(field(line));
+				}
+			}
+		} catch (IOException e) {
+			if (!closed) {
+				failure = e;
+			}
+		}
+	}
+
+	private static String field(String line) {
+		String value = line.substring(line.indexOf(':') + 1);
+		return value.startsWith(" ") ? value.substring(1) : value;
+	}
+}
@@ -1,12 +1,12 @@
 package nl.utwente.ing.testsuite;
 
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.response.Response;
 import nl.utwente.ing.model.Message;
 import nl.utwente.ing.model.PaymentRequest;
 import nl.utwente.ing.model.SavingGoal;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -19,19 +19,21 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
-import static io.restassured.RestAssured.given;
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class MessageTest {
-	private static String testSessionId;
+	private String testSessionId;
 	private static Instant now;
 	private static String nowString;
 	
 	@BeforeClass
 	public static void before() {
-		RestAssured.basePath = "/api/v1";
 		now = Instant.now();
 		nowString = getDateString(now);
 		
@@ -148,17 +150,25 @@ public class MessageTest {
 		return response;
 	}
 	
+	private static void postTransaction(JSONObject transaction, TransactionColumns posted, String session) {
+		postObject(transaction, "transactions", session);
+		double amount = transaction.getDouble("amount");
+		posted.add(Instant.from(DateTimeFormatter.ISO_DATE_TIME.parse(transaction.getString("date"))).getEpochSecond(),
+				transaction.getString("type").equals("deposit") ? amount : -amount);
+	}
+	
 	private static void checkGetRequest(List<Message> messages, String sessionId) {
-		int nrMessages = messages.size();
-		
-		
 		Response getResponseHeader = given().
         		contentType("application/json").
         		header("X-session-ID", sessionId).
         	when().
         		get("/messages");
 		
-		Message[] requestMessages = getResponseHeader.as(Message[].class);
+		checkMessages(messages, getResponseHeader.as(Message[].class));
+	}
+	
+	private static void checkMessages(List<Message> messages, Message[] requestMessages) {
+		int nrMessages = messages.size();
 		
 		// Check that the size is correct
 		assertEquals(requestMessages.length, nrMessages);
@@ -169,6 +179,15 @@ public class MessageTest {
 		}
 	}
 	
+	private static CompletableFuture<Response> postTransactionAsync(JSONObject transaction, String session) {
+		return AsyncTestClient.postObject(transaction, "transactions", session);
+	}
+	
+	private static CompletableFuture<Void> checkGetRequestAsync(List<Message> messages, String sessionId) {
+		return AsyncTestClient.get("/messages", sessionId).
+				thenAccept(response -> checkMessages(messages, response.as(Message[].class)));
+	}
+	
 	@Test
 	public void testReadMessage() {
 		testSessionId = getNewSession();
@@ -257,6 +276,8 @@ public class MessageTest {
 	public void testHighestBalance() {
 		testSessionId = getNewSession();
 		List<Message> messages = new ArrayList<>();
+		// The expected balances are computed from the posted transactions
+		TransactionColumns posted = new TransactionColumns();
 		
 		ZonedDateTime transactionTime = ZonedDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
 		
@@ -267,7 +288,7 @@ public class MessageTest {
 				.put("description", "")
 				.put("type", "deposit");
 		
-		postObject(transaction, "transactions", testSessionId);
+		postTransaction(transaction, posted, testSessionId);
 		// No messages should be added because there isn't 3 months of data
 		checkGetRequest(messages, testSessionId);
 		
@@ -277,7 +298,7 @@ public class MessageTest {
 				.put("type", "withdrawal")
 				.put("date", getDateString(transactionTime.toInstant()));
 		
-		postObject(transaction, "transactions", testSessionId);
+		postTransaction(transaction, posted, testSessionId);
 		
 		// No messages should be added because there isn't 3 months of data
 		checkGetRequest(messages, testSessionId);
@@ -287,7 +308,7 @@ public class MessageTest {
 		transaction
 				.put("date", getDateString(transactionTime.toInstant()));
 		
-		postObject(transaction, "transactions", testSessionId);
+		postTransaction(transaction, posted, testSessionId);
 		
 		
 		transactionTime = transactionTime.plus(1, ChronoUnit.MONTHS);
@@ -296,7 +317,7 @@ public class MessageTest {
 				.put("type", "deposit")
 				.put("date", getDateString(transactionTime.toInstant()));
 		
-		postObject(transaction, "transactions", testSessionId);
+		postTransaction(transaction, posted, testSessionId);
 
 		checkGetRequest(messages, testSessionId);
 		
@@ -304,9 +325,12 @@ public class MessageTest {
 		transaction
 				.put("amount", 70.0)
 				.put("date", getDateString(transactionTime.toInstant()));
+		double previousHigh = posted.highestBalance(transactionTime.minus(3, ChronoUnit.MONTHS).toEpochSecond(),
+				transactionTime.toEpochSecond());
 		// The balance should now be 100, so a new message must be added
-		postObject(transaction, "transactions", testSessionId);
-		String msg = "Your balance reached a new high of 100.0!";
+		postTransaction(transaction, posted, testSessionId);
+		assertTrue(posted.getBalance() > previousHigh);
+		String msg = "Your balance reached a new high of " + posted.getBalance() + "!";
 		Message m = new Message(0, msg, transactionTime.toEpochSecond(), false, "info");
 		messages.add(m);
 		checkGetRequest(messages, testSessionId);
@@ -446,4 +470,184 @@ public class MessageTest {
 		checkGetRequest(messages, testSessionId);
 	}
 	
+	
+	@Test
+	public void testMessageStream() {
+		testSessionId = getNewSession();
+		Message belowZero = new Message(0, "Balance dropped below zero!", now.getEpochSecond(), false, "warning");
+		
+		// No header
+		given().
+		when().
+			get("/messages/stream").
+		then().
+			assertThat().statusCode(401);
+		
+		JSONObject transaction = new JSONObject()
+				.put("date", nowString)
+				.put("amount", 50.0)
+				.put("externalIBAN", "TestIban")
+				.put("description", "")
+				.put("type", "withdrawal");
+		int lastEventId;
+		try (MessageStreamReader stream = MessageStreamReader.open(testSessionId)) {
+			// Every message is delivered once, when the transaction that causes it is posted
+			postObject(transaction, "transactions", testSessionId);
+			assertTrue(stream.take(1, 5000).get(0).equalsData(belowZero));
+			stream.assertQuiet(200);
+			
+			transaction
+					.put("amount", 100.0)
+					.put("type", "deposit");
+			postObject(transaction, "transactions", testSessionId);
+			stream.assertQuiet(200);
+			
+			transaction.put("type", "withdrawal");
+			postObject(transaction, "transactions", testSessionId);
+			assertTrue(stream.take(1, 5000).get(0).equalsData(belowZero));
+			lastEventId = stream.getLastEventId();
+		}
+		
+		// A message added while the stream is closed is delivered when it is resumed
+		transaction.put("type", "deposit");
+		postObject(transaction, "transactions", testSessionId);
+		transaction
+				.put("amount", 150.0)
+				.put("type", "withdrawal");
+		postObject(transaction, "transactions", testSessionId);
+		try (MessageStreamReader stream = MessageStreamReader.open(testSessionId, lastEventId)) {
+			assertTrue(stream.take(1, 5000).get(0).equalsData(belowZero));
+			assertEquals(lastEventId + 1, stream.getLastEventId());
+			stream.assertQuiet(200);
+		}
+		
+		// Without Last-Event-ID the stream starts with all messages
+		Message[] requestMessages = given().
+				contentType("application/json").
+				header("X-session-ID", testSessionId).
+			when().
+				get("/messages").as(Message[].class);
+		assertEquals(3, requestMessages.length);
+		try (MessageStreamReader stream = MessageStreamReader.open(testSessionId)) {
+			List<Message> streamed = stream.take(3, 5000);
+			for (int i = 0; i < requestMessages.length; i++) {
+				assertEquals(requestMessages[i].getId(), streamed.get(i).getId());
+				assertTrue(requestMessages[i].equalsData(streamed.get(i)));
+			}
+			stream.assertQuiet(200);
+		}
+	}
+	
+	@Test
+	public void testMessageStreamLatency() {
+		// Iterations and percentile budgets are set with benchmark.* system properties
+		int nrWarmup = Integer.getInteger("benchmark.warmup", 5);
+		int nrTrials = Integer.getInteger("benchmark.iterations", 50);
+		testSessionId = getNewSession();
+		LatencyBenchmark benchmark = LatencyBenchmark.fromSystemProperties(nrTrials);
+		LatencyHistogram histogram = new LatencyHistogram();
+		
+		JSONObject transaction = new JSONObject()
+				.put("date", nowString)
+				.put("amount", 50.0)
+				.put("externalIBAN", "TestIban")
+				.put("description", "")
+				.put("type", "withdrawal");
+		try (MessageStreamReader stream = MessageStreamReader.open(testSessionId)) {
+			for (int i = 0; i < nrWarmup + nrTrials; i++) {
+				// Every withdrawal drops the balance below zero and the deposit brings it back
+				long start = System.nanoTime();
+				postObject(transaction.put("type", "withdrawal"), "transactions", testSessionId);
+				MessageStreamReader.Event event = stream.next(5, TimeUnit.SECONDS);
+				assertNotNull(event);
+				assertEquals("Balance dropped below zero!", event.getMessage().getMessage());
+				if (i >= nrWarmup) {
+					histogram.recordNanos(event.getReceivedNanos() - start);
+				}
+				postObject(transaction.put("type", "deposit"), "transactions", testSessionId);
+			}
+			stream.assertQuiet(200);
+		}
+		benchmark.report("Message received after POST /transactions", histogram);
+		// The average notification latency should stay below one second
+		assertTrue((long)(histogram.getMean() / 1000) < 1000);
+	}
+	
+	/**
+	 * Checks that the ETag of the unread messages changes when a message is added or read, and not for
+	 * transactions that do not trigger a message or for reading a message twice.
+	 */
+	@Test
+	public void testConditionalGet() {
+		testSessionId = getNewSession();
+		ConditionalCache cache = new ConditionalCache();
+		cache.assertChanged(testSessionId, "/messages");
+		cache.assertUnchanged(testSessionId, "/messages");
+		
+		JSONObject transaction = new JSONObject()
+				.put("date", nowString)
+				.put("amount", 50.0)
+				.put("externalIBAN", "TestIban")
+				.put("description", "")
+				.put("type", "deposit");
+		postObject(transaction, "transactions", testSessionId);
+		cache.assertUnchanged(testSessionId, "/messages");
+		
+		// Drop the balance below zero
+		postObject(transaction.put("amount", 100.0).put("type", "withdrawal"), "transactions", testSessionId);
+		JSONArray unread = new JSONArray(cache.assertChanged(testSessionId, "/messages").getBody());
+		assertEquals(1, unread.length());
+		postObject(transaction.put("amount", 50.0).put("type", "deposit"), "transactions", testSessionId);
+		cache.assertUnchanged(testSessionId, "/messages");
+		
+		for (int i = 0; i < 2; i++) {
+			given().
+				header("X-session-ID", testSessionId).
+			when().
+				put("/messages/" + unread.getJSONObject(0).getInt("id")).
+			then().
+				assertThat().statusCode(200);
+			if (i == 0) {
+				assertEquals("[]", cache.assertChanged(testSessionId, "/messages").getBody());
+			} else {
+				cache.assertUnchanged(testSessionId, "/messages");
+			}
+		}
+	}
+	
+	@Test
+	public void testNegativeBalanceAsync() {
+		// The flow of testNegativeBalance in many sessions at once, on the non-blocking transport
+		int sessions = Integer.getInteger("async.sessions", 500);
+		List<CompletableFuture<Void>> flows = new ArrayList<>();
+		for (int i = 0; i < sessions; i++) {
+			flows.add(AsyncTestClient.getNewSession().thenCompose(session -> {
+				List<Message> messages = new ArrayList<>();
+				return postTransactionAsync(transaction(50.0, "deposit"), session).
+						thenCompose(response -> checkGetRequestAsync(messages, session)).
+						thenCompose(checked -> postTransactionAsync(transaction(100.0, "withdrawal"), session)).
+						thenCompose(response -> {
+							messages.add(new Message(0, "Balance dropped below zero!", now.getEpochSecond(), false,
+									"warning"));
+							return checkGetRequestAsync(messages, session);
+						}).
+						thenCompose(checked -> postTransactionAsync(transaction(50.0, "deposit"), session)).
+						thenCompose(response -> checkGetRequestAsync(messages, session));
+			}));
+		}
+		AsyncTestClient.await(CompletableFuture.allOf(flows.toArray(new CompletableFuture<?>[0])));
+		LatencyHistogram queue = AsyncTestClient.getQueueLatency();
+		System.out.println(String.format("Waited for a connection: p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+				queue.getValueAtPercentile(50) / 1000.0, queue.getValueAtPercentile(99) / 1000.0,
+				queue.getMax() / 1000.0));
+	}
+	
+	private static JSONObject transaction(double amount, String type) {
+		return new JSONObject()
+				.put("date", nowString)
+				.put("amount", amount)
+				.put("externalIBAN", "TestIban")
+				.put("description", "")
+				.put("type", type);
+	}
 }
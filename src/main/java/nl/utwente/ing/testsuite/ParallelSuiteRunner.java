@@ -0,0 +1,149 @@
+package nl.utwente.ing.testsuite;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.junit.runner.Computer;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the test classes in parallel on a fork-join pool and reports the wall-clock time per class and the
+ * latency per endpoint.
+ * Every test creates its own session and request specification, so classes and methods can run concurrently.
+ * Configured with the following system properties:
+ * <ul>
+ * <li>suite.parallelism: number of worker threads (default number of processors)</li>
+ * <li>suite.parallelMethods: also run the methods of a class in parallel (default true)</li>
+ * </ul>
+ */
+public class ParallelSuiteRunner {
+	public static final Class<?>[] TEST_CLASSES = {
+			BaseSystemTest.class, BalanceHistoryTest.class, CategoryRuleTest.class, MessageRuleTest.class,
+			MessageTest.class, PaymentRequestTest.class, SavingGoalsTest.class};
+
+	private final ForkJoinPool pool;
+	private final boolean parallelMethods;
+	private final Map<Class<?>, Long> wallClockMillis = new ConcurrentHashMap<>();
+
+	public ParallelSuiteRunner(int parallelism, boolean parallelMethods) {
+		this.pool = new ForkJoinPool(parallelism);
+		this.parallelMethods = parallelMethods;
+	}
+
+	public static void main(String[] args) {
+		ParallelSuiteRunner runner = new ParallelSuiteRunner(
+				Integer.getInteger("suite.parallelism", Runtime.getRuntime().availableProcessors()),
+				Boolean.parseBoolean(System.getProperty("suite.parallelMethods", "true")));
+		Result result = runner.run(TEST_CLASSES);
+		System.exit(result.wasSuccessful() ? 0 : 1);
+	}
+
+	/**
+	 * Runs the given test classes and prints the wall-clock time and failures per class.
+	 * @param classes the test classes to run
+	 * @return the combined result
+	 */
+	public Result run(Class<?>... classes) {
+		long start = System.nanoTime();
+		Result result;
+		try {
+			result = new JUnitCore().run(new ForkJoinComputer(), classes);
+		} finally {
+			pool.shutdown();
+		}
+		long totalMillis = (System.nanoTime() - start) / 1_000_000;
+
+		for (Class<?> testClass : classes) {
+			long failures = result.getFailures().stream()
+					.filter(f -> testClass.getName().equals(f.getDescription().getClassName())).count();
+			System.out.println(String.format("%-30s %8d ms %4d failures", testClass.getSimpleName(),
+					wallClockMillis.getOrDefault(testClass, 0L), failures));
+		}
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.getTestHeader() + ": " + failure.getMessage());
+		}
+		System.out.println(String.format("Ran %d tests, %d failures, %d ignored in %d ms (parallelism= %d)",
+				result.getRunCount(), result.getFailureCount(), result.getIgnoreCount(), totalMillis,
+				pool.getParallelism()));
+		TestClient.getStatistics().report(totalMillis / 1000.0);
+		return result;
+	}
+
+	private class ForkJoinComputer extends Computer {
+		@Override
+		public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+			Runner suite = super.getSuite(builder, classes);
+			((ParentRunner<?>) suite).setScheduler(new ForkJoinScheduler());
+			return suite;
+		}
+
+		@Override
+		protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+			Runner runner = super.getRunner(builder, testClass);
+			if (parallelMethods && runner instanceof ParentRunner) {
+				((ParentRunner<?>) runner).setScheduler(new ForkJoinScheduler());
+			}
+			return new TimedRunner(testClass, runner);
+		}
+	}
+
+	/**
+	 * Submits every child to the pool and waits for all of them when the parent finishes.
+	 */
+	private class ForkJoinScheduler implements RunnerScheduler {
+		private final Queue<ForkJoinTask<?>> tasks = new ConcurrentLinkedQueue<>();
+
+		@Override
+		public void schedule(Runnable childStatement) {
+			tasks.add(pool.submit(childStatement));
+		}
+
+		@Override
+		public void finished() {
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * Records the wall-clock time of a test class, from its first fixture until all its methods finished.
+	 */
+	private class TimedRunner extends Runner {
+		private final Class<?> testClass;
+		private final Runner delegate;
+
+		TimedRunner(Class<?> testClass, Runner delegate) {
+			this.testClass = testClass;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Description getDescription() {
+			return delegate.getDescription();
+		}
+
+		@Override
+		public void run(RunNotifier notifier) {
+			long start = System.nanoTime();
+			try {
+				delegate.run(notifier);
+			} finally {
+				wallClockMillis.put(testClass, (System.nanoTime() - start) / 1_000_000);
+			}
+		}
+	}
+}
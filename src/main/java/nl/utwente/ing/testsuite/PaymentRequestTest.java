@@ -1,6 +1,5 @@
 package nl.utwente.ing.testsuite;
 
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.path.json.JsonPath;
@@ -8,7 +7,7 @@ import io.restassured.response.Response;
 import nl.utwente.ing.model.PaymentRequest;
 import nl.utwente.ing.model.Transaction;
 import org.json.JSONObject;
-import org.junit.BeforeClass;
+import org.junit.Before;
 import org.junit.Test;
 
 import java.time.Instant;
@@ -18,16 +17,15 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
-import static io.restassured.RestAssured.given;
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.*;
 
 public class PaymentRequestTest {
-	private static String sessionID;
+	private String sessionID;
 	private static final int INITIAL_PAYMENT_REQUESTS = 10;
 	
-	@BeforeClass
-	public static void before() {
-		RestAssured.basePath = "/api/v1";
+	@Before
+	public void before() {
 		sessionID = getNewSession();
 		
 		JSONObject dummyPaymentRequest = new JSONObject()
@@ -568,6 +566,65 @@ public class PaymentRequestTest {
 		assertEquals(getNrTransactions(testSessionId, 1), 1);
 	}
 	
-	
-	
+	/**
+	 * Checks that the ETag of the payment requests changes when a request is added or receives a transaction,
+	 * and when a transaction that a request shows changes, but not for other transactions.
+	 */
+	@Test
+	public void testConditionalGet() {
+		ConditionalCache cache = new ConditionalCache();
+		cache.assertChanged(sessionID, "/paymentRequests");
+		cache.assertUnchanged(sessionID, "/paymentRequests");
+
+		JSONObject transaction = new JSONObject()
+				.put("date", "2018-07-01T10:00Z")
+				.put("externalIBAN", "NL12ABNA0457688830");
+		int other = postObject(new JSONObject(transaction.toString()).put("amount", 10.0).put("type", "deposit"),
+				"transactions", sessionID).jsonPath().getInt("id");
+		postObject(new JSONObject(transaction.toString()).put("amount", 213.04).put("type", "withdrawal"),
+				"transactions", sessionID);
+		cache.assertUnchanged(sessionID, "/paymentRequests");
+		int paid = postObject(new JSONObject(transaction.toString()).put("amount", 213.04).put("type", "deposit"),
+				"transactions", sessionID).jsonPath().getInt("id");
+		assertTrue(cache.assertChanged(sessionID, "/paymentRequests").getBody().contains("\"filled\":true"));
+
+		// A payment request shows its transactions with their category
+		int categoryId = postObject(new JSONObject().put("name", "Lunch"), "categories", sessionID)
+				.jsonPath().getInt("id");
+		for (int transactionId : new int[] {other, paid}) {
+			given().
+				header("X-session-ID", sessionID).
+				header("Content-Type", "application/JSON").
+				body(new JSONObject().put("category_id", categoryId).toString()).
+			when().
+				patch("/transactions/" + transactionId + "/category").
+			then().
+				assertThat().statusCode(200);
+			if (transactionId == paid) {
+				cache.assertChanged(sessionID, "/paymentRequests");
+			} else {
+				cache.assertUnchanged(sessionID, "/paymentRequests");
+			}
+		}
+		given().
+			header("X-session-ID", sessionID).
+			header("Content-Type", "application/JSON").
+			body(new JSONObject().put("name", "Dinner").toString()).
+		when().
+			put("/categories/" + categoryId).
+		then().
+			assertThat().statusCode(200);
+		cache.assertChanged(sessionID, "/paymentRequests");
+
+		// Passing the due date only adds a message
+		postObject(new JSONObject(transaction.toString()).put("date", "2018-07-10T10:00Z").put("amount", 1.0)
+				.put("type", "deposit"), "transactions", sessionID);
+		cache.assertUnchanged(sessionID, "/paymentRequests");
+		postObject(new JSONObject()
+				.put("description", "Cinema")
+				.put("due_date", "2018-08-01T00:00Z")
+				.put("amount", 12.5)
+				.put("number_of_requests", 2), "paymentRequests", sessionID);
+		cache.assertChanged(sessionID, "/paymentRequests");
+	}
 }
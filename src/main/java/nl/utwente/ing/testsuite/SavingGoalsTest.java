@@ -1,14 +1,15 @@
 package nl.utwente.ing.testsuite;
 
-import static io.restassured.RestAssured.given;
+import static nl.utwente.ing.testsuite.TestClient.given;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
+
 import org.json.JSONObject;
-import org.junit.BeforeClass;
+import org.junit.Before;
 import org.junit.Test;
 
-import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
 import io.restassured.module.jsv.JsonSchemaValidator;
 import io.restassured.path.json.JsonPath;
@@ -18,14 +19,13 @@ import nl.utwente.ing.model.SavingGoal;
 import nl.utwente.ing.model.Transaction;
 
 public class SavingGoalsTest {
-	private static String sessionID;
+	private String sessionID;
 	private static final int INITIAL_SAVING_GOALS = 10;
-	private static String lastSavingGoalID;
+	private String lastSavingGoalID;
 	private static final double EPSILON = 0.005;
 	
-	@BeforeClass
-	public static void before() {
-		RestAssured.basePath = "/api/v1";
+	@Before
+	public void before() {
 		sessionID = getNewSession();
 		
 		JSONObject dummySavingGoal = new JSONObject()
@@ -516,9 +516,7 @@ public class SavingGoalsTest {
 				.put("externalIBAN", "TestIban")
 				.put("description", "")
 				.put("type", "deposit");
-		for (int i = 0; i < nrOfNormalTransactions; i++) {
-			postObject(normalTransaction, "transactions", testSessionId);
-		}
+		new TransactionImporter(testSessionId).importValid(Collections.nCopies(nrOfNormalTransactions, normalTransaction));
 		testScenario(1000, 1000, 400, 400, 400, testSessionId, 0);
 		
 		Response getResponseHeader = given().
@@ -1001,5 +999,47 @@ public class SavingGoalsTest {
 			post("/savingGoals");
 	}
 	
-	
+	/**
+	 * Checks that the ETag of the saving goals changes when a goal is added or deleted and when money is set
+	 * aside, but not for transactions within a month.
+	 */
+	@Test
+	public void testConditionalGet() {
+		ConditionalCache cache = new ConditionalCache();
+		cache.assertChanged(sessionID, "/savingGoals");
+		cache.assertChanged(sessionID, "/transactions");
+		cache.assertUnchanged(sessionID, "/savingGoals");
+
+		String[] dates = {"2018-01-10T10:00Z", "2018-01-20T10:00Z", "2018-02-05T10:00Z"};
+		for (String date : dates) {
+			postObject(new JSONObject()
+					.put("date", date)
+					.put("amount", 1000.0)
+					.put("externalIBAN", "NL12ABNA0457688830")
+					.put("type", "deposit"), "transactions", sessionID);
+			cache.assertChanged(sessionID, "/transactions");
+			// Only the first transaction of February moves the clock past the start of a month
+			if (date.equals(dates[2])) {
+				cache.assertChanged(sessionID, "/savingGoals");
+			} else {
+				cache.assertUnchanged(sessionID, "/savingGoals");
+			}
+		}
+		assertEquals(1.0, getSavingGoalBalance(sessionID, 0), EPSILON);
+
+		String savingGoalId = postObject(new JSONObject()
+				.put("name", "Holiday")
+				.put("goal", 100.0)
+				.put("savePerMonth", 10.0)
+				.put("minBalanceRequired", 0.0), "savingGoals", sessionID);
+		cache.assertChanged(sessionID, "/savingGoals");
+		given().
+			header("X-session-ID", sessionID).
+		when().
+			delete("/savingGoals/" + savingGoalId).
+		then().
+			assertThat().statusCode(204);
+		cache.assertChanged(sessionID, "/savingGoals");
+		cache.assertUnchanged(sessionID, "/transactions");
+	}
 }
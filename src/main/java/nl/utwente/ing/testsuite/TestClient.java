@@ -0,0 +1,93 @@
+package nl.utwente.ing.testsuite;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Paths;
+
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.EncoderConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * Entry point for all requests of the test suite.
+ * Every call to {@link #given()} returns a new {@link RequestSpecification} based on an immutable
+ * specification, so tests do not depend on (or modify) the static RestAssured configuration
+ * and can safely run in parallel.
+ * Connections are kept alive in the {@link ConnectionPool}.
+ * The latency of every request is recorded per endpoint and written to the file in the suite.latencyReport
+ * system property when the JVM exits (default target/endpoint-latency.json, CSV for a .csv name, empty to disable).
+ * The API location is set with the api.baseURI, api.port and api.basePath system properties.
+ */
+public final class TestClient {
+	private static final String BASE_URI = System.getProperty("api.baseURI", RestAssured.DEFAULT_URI);
+	private static final int PORT = Integer.getInteger("api.port", RestAssured.DEFAULT_PORT);
+	private static final String BASE_PATH = System.getProperty("api.basePath", "/api/v1");
+	private static final String LATENCY_REPORT = System.getProperty("suite.latencyReport",
+			"target/endpoint-latency.json");
+	private static final EndpointStatistics STATISTICS = new EndpointStatistics();
+	private static final long START = System.nanoTime();
+	private static final RequestSpecification SPECIFICATION = new RequestSpecBuilder()
+			.setBaseUri(BASE_URI)
+			.setPort(PORT)
+			.setBasePath(BASE_PATH)
+			// Batches of transactions are sent as NDJSON, which is plain text to RestAssured
+			.setConfig(RestAssuredConfig.config().encoderConfig(EncoderConfig.encoderConfig()
+					.encodeContentTypeAs("application/x-ndjson", ContentType.TEXT))
+					.httpClient(ConnectionPool.httpClientConfig()))
+			.addFilter(STATISTICS)
+			.build();
+
+	static {
+		if (!LATENCY_REPORT.isEmpty()) {
+			Runtime.getRuntime().addShutdownHook(new Thread(TestClient::writeLatencyReport, "latency-report"));
+		}
+	}
+
+	private TestClient() {
+
+	}
+
+	public static RequestSpecification given() {
+		return RestAssured.given().spec(SPECIFICATION);
+	}
+
+	public static RequestSpecification getSpecification() {
+		return SPECIFICATION;
+	}
+
+	/**
+	 * @return the latency and errors per endpoint of all requests made since the class was loaded
+	 */
+	public static EndpointStatistics getStatistics() {
+		return STATISTICS;
+	}
+
+	/**
+	 * Resolves a path of the API, for requests that do not go through RestAssured.
+	 * @param path the path relative to the base path, including the query
+	 * @return the absolute URL
+	 */
+	public static URL url(String path) {
+		try {
+			URL base = new URL(BASE_URI);
+			return new URL(base.getProtocol(), base.getHost(), PORT, BASE_PATH + path);
+		} catch (MalformedURLException e) {
+			throw new IllegalArgumentException("Invalid API location for path " + path, e);
+		}
+	}
+
+	private static void writeLatencyReport() {
+		if (STATISTICS.getEndpoints().isEmpty()) {
+			return;
+		}
+		try {
+			STATISTICS.write(Paths.get(LATENCY_REPORT), (System.nanoTime() - START) / 1e9);
+		} catch (IOException e) {
+			System.err.println("Cannot write the latency report " + LATENCY_REPORT + ": " + e);
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package nl.utwente.ing.testsuite;
+
+import java.util.Arrays;
+
+import nl.utwente.ing.model.CandleStick;
+import nl.utwente.ing.model.TimeInterval;
+import nl.utwente.ing.model.Transaction;
+import nl.utwente.ing.model.TransactionType;
+
+/**
+ * Keeps transactions column by column in primitive arrays to compute the expected results of a test.
+ * A row is the time in epoch seconds and the signed amount. Rows can be added in any order; the columns
+ * are sorted by time on the first query after an add, and prefix sums of the balance and the volume are
+ * built alongside. A candlestick is then two binary searches and a scan of the prefix sums within its
+ * interval. Sums are kept in cents so they are exact.
+ */
+public class TransactionColumns {
+	private int size;
+	private long[] times = new long[16];
+	private double[] amounts = new double[16];
+
+	// Balance and volume in cents after the first i rows, valid while sorted is true
+	private long[] balances = new long[1];
+	private long[] volumes = new long[1];
+	private boolean sorted = true;
+
+	/**
+	 * Adds a transaction as a deposit or withdrawal of its amount.
+	 * @param transaction a transaction with a valid date
+	 */
+	public void add(Transaction transaction) {
+		add(transaction.returnUnixTimestamp(), transaction.getType() == TransactionType.deposit
+				? transaction.getAmount() : -transaction.getAmount());
+	}
+
+	/**
+	 * Adds a row.
+	 * @param epochSecond the time of the transaction
+	 * @param amount the amount, negative for withdrawals
+	 */
+	public void add(long epochSecond, double amount) {
+		if (size == times.length) {
+			int capacity = size * 2;
+			times = Arrays.copyOf(times, capacity);
+			amounts = Arrays.copyOf(amounts, capacity);
+		}
+		if (size > 0 && epochSecond < times[size - 1]) {
+			sorted = false;
+		}
+		times[size] = epochSecond;
+		amounts[size] = amount;
+		size++;
+		if (sorted) {
+			appendSums(size - 1);
+		}
+	}
+
+	/**
+	 * @return the balance after all transactions
+	 */
+	public double getBalance() {
+		sort();
+		return balances[size] / 100.0;
+	}
+
+	/**
+	 * @param from the start of the period, inclusive
+	 * @param to the end of the period, inclusive
+	 * @return the highest balance within the period, including the balance at its start
+	 */
+	public double highestBalance(long from, long to) {
+		sort();
+		int first = upperBound(from - 1);
+		int last = upperBound(to);
+		long highest = balances[first];
+		for (int i = first + 1; i <= last; i++) {
+			highest = Math.max(highest, balances[i]);
+		}
+		return highest / 100.0;
+	}
+
+	/**
+	 * Returns the candlesticks of the last intervals like /balance/history, the last candlestick is the
+	 * interval that contains now and transactions after it are not part of any candlestick.
+	 * @param interval the length of one candlestick
+	 * @param now the current time in epoch seconds
+	 * @param intervals the number of candlesticks
+	 * @return the candlesticks, oldest first
+	 */
+	public CandleStick[] getCandleSticks(TimeInterval interval, long now, int intervals) {
+		sort();
+		CandleStick[] candleSticks = new CandleStick[intervals];
+		long start = interval.plus(interval.truncate(now), 1 - intervals);
+		int first = lowerBound(start);
+		for (int i = 0; i < intervals; i++) {
+			long end = interval.plus(start, 1);
+			int last = lowerBound(end);
+			long high = balances[first];
+			long low = balances[first];
+			for (int j = first + 1; j <= last; j++) {
+				high = Math.max(high, balances[j]);
+				low = Math.min(low, balances[j]);
+			}
+			candleSticks[i] = new CandleStick(balances[first] / 100.0, balances[last] / 100.0, high / 100.0,
+					low / 100.0, (volumes[last] - volumes[first]) / 100.0, start);
+			start = end;
+			first = last;
+		}
+		return candleSticks;
+	}
+
+	private void appendSums(int row) {
+		if (balances.length < row + 2) {
+			balances = Arrays.copyOf(balances, times.length + 1);
+			volumes = Arrays.copyOf(volumes, times.length + 1);
+		}
+		long cents = Math.round(amounts[row] * 100);
+		balances[row + 1] = balances[row] + cents;
+		volumes[row + 1] = volumes[row] + Math.abs(cents);
+	}
+
+	/**
+	 * Sorts the rows by time, keeping rows with the same time in the order they were added, and rebuilds
+	 * the prefix sums.
+	 */
+	private void sort() {
+		if (sorted) {
+			return;
+		}
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		mergeSort(order, new int[size], 0, size);
+		long[] sortedTimes = new long[times.length];
+		double[] sortedAmounts = new double[times.length];
+		for (int i = 0; i < size; i++) {
+			sortedTimes[i] = times[order[i]];
+			sortedAmounts[i] = amounts[order[i]];
+		}
+		times = sortedTimes;
+		amounts = sortedAmounts;
+		for (int i = 0; i < size; i++) {
+			appendSums(i);
+		}
+		sorted = true;
+	}
+
+	private void mergeSort(int[] order, int[] buffer, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, from, middle);
+		mergeSort(order, buffer, middle, to);
+		if (times[order[middle - 1]] <= times[order[middle]]) {
+			return;
+		}
+		System.arraycopy(order, from, buffer, from, to - from);
+		for (int i = from, left = from, right = middle; i < to; i++) {
+			if (right == to || (left < middle && times[buffer[left]] <= times[buffer[right]])) {
+				order[i] = buffer[left++];
+			} else {
+				order[i] = buffer[right++];
+			}
+		}
+	}
+
+	/**
+	 * @return the number of rows before the time
+	 */
+	private int lowerBound(long epochSecond) {
+		return upperBound(epochSecond - 1);
+	}
+
+	/**
+	 * @return the number of rows at or before the time
+	 */
+	private int upperBound(long epochSecond) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (times[middle] <= epochSecond) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,115 @@
+package nl.utwente.ing.testsuite;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import nl.utwente.ing.model.Transaction;
+
+/**
+ * Walks all transactions of a session page by page with the offset and limit parameters of /transactions.
+ * The next page is requested in the background as soon as the current page is handed out, so the network
+ * round trip of a page overlaps with the processing of the previous one. At most two pages are in memory.
+ * The offset advances by the transactions actually received and the walk ends at the first empty page, so a
+ * backend that caps the limit is still walked to the end.
+ * The cursor assumes the session is not modified while it is walked, offsets shift when transactions are
+ * added or deleted in between.
+ */
+public class TransactionCursor implements Iterator<Transaction> {
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "transaction-cursor-prefetch");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String sessionId;
+	private final int pageSize;
+	private final Integer category;
+	private Iterator<Transaction> page = Collections.emptyIterator();
+	private CompletableFuture<List<Transaction>> nextPage;
+	private int offset;
+
+	public TransactionCursor(String sessionId) {
+		this(sessionId, DEFAULT_PAGE_SIZE, null);
+	}
+
+	/**
+	 * Creates a cursor and requests its first page.
+	 * @param sessionId the session to walk
+	 * @param pageSize the number of transactions per request
+	 * @param category only walk the transactions of this category, or all transactions when null
+	 */
+	public TransactionCursor(String sessionId, int pageSize, Integer category) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+		this.sessionId = sessionId;
+		this.pageSize = pageSize;
+		this.category = category;
+		this.nextPage = fetch(0);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!page.hasNext()) {
+			if (nextPage == null) {
+				return false;
+			}
+			List<Transaction> current = join(nextPage);
+			offset += current.size();
+			// A backend may return fewer transactions than the limit asks for, only an empty page is the end
+			nextPage = current.isEmpty() ? null : fetch(offset);
+			page = current.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public Transaction next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return page.next();
+	}
+
+	/**
+	 * @return a lazy sequential stream over the remaining transactions
+	 */
+	public Stream<Transaction> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+				false);
+	}
+
+	private CompletableFuture<List<Transaction>> fetch(int pageOffset) {
+		String path = "/transactions?offset=" + pageOffset + "&limit=" + pageSize
+				+ (category == null ? "" : "&category=" + category);
+		return CompletableFuture.supplyAsync(() -> {
+			try (Stream<Transaction> transactions = JsonListReader.get(sessionId, path, Transaction.class).stream()) {
+				return transactions.collect(Collectors.toList());
+			}
+		}, PREFETCH);
+	}
+
+	private static List<Transaction> join(CompletableFuture<List<Transaction>> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
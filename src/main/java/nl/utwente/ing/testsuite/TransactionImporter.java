@@ -0,0 +1,258 @@
+package nl.utwente.ing.testsuite;
+
+import static nl.utwente.ing.testsuite.TestClient.given;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.StreamSupport;
+
+import org.json.JSONObject;
+
+import io.restassured.response.Response;
+
+/**
+ * Imports transactions into a session with POST /transactions/batch instead of one request per transaction.
+ * The transactions are sent in chunks of NDJSON, one transaction per line. A chunk is uploaded in the
+ * background while the next chunk is encoded. By default one chunk is uploaded at a time, so the server
+ * receives the transactions in order, which matters for saving goals, messages and everything else that
+ * depends on the order of transactions. More chunks in flight are faster for fixtures where the order
+ * does not matter. Servers without the batch endpoint, which answer it with 404 or 405, get one
+ * POST /transactions per transaction instead.
+ * This is the only bulk upload of the suite: {@link TransactionSeeder} imports its generated transactions
+ * through it as well.
+ */
+public class TransactionImporter {
+	public static final int DEFAULT_CHUNK_SIZE = 500;
+
+	private static final ExecutorService UPLOADS = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "transaction-importer-upload");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final String sessionId;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int inFlight = 1;
+	private volatile boolean batchSupported = true;
+
+	/**
+	 * The outcome of one transaction of a batch.
+	 */
+	public static class Result {
+		private int index;
+		private int status;
+		private Integer id;
+		private String error;
+
+		public int getIndex() {
+			return index;
+		}
+
+		public void setIndex(int index) {
+			this.index = index;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public void setStatus(int status) {
+			this.status = status;
+		}
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public String getError() {
+			return error;
+		}
+
+		public void setError(String error) {
+			this.error = error;
+		}
+
+		public boolean isCreated() {
+			return id != null;
+		}
+	}
+
+	public TransactionImporter(String sessionId) {
+		this.sessionId = sessionId;
+	}
+
+	public TransactionImporter withChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * @param inFlight the number of chunks that are uploaded at the same time, more than one does not
+	 * preserve the order of the transactions
+	 */
+	public TransactionImporter withInFlight(int inFlight) {
+		if (inFlight < 1) {
+			throw new IllegalArgumentException("The number of chunks in flight must be positive");
+		}
+		this.inFlight = inFlight;
+		return this;
+	}
+
+	/**
+	 * Imports transactions.
+	 * @param transactions the request bodies of the transactions
+	 * @return the result of every transaction, in order, with the index of the transaction in the input
+	 * @throws IllegalStateException if a chunk is not accepted as a batch
+	 */
+	public List<Result> importAll(Iterable<JSONObject> transactions) {
+		return importBodies(() -> StreamSupport.stream(transactions.spliterator(), false).map(JSONObject::toString)
+				.iterator());
+	}
+
+	/**
+	 * Imports transactions that are already serialized, e.g. generated ones that are never held in memory
+	 * all at once. The bodies are taken from the iterator while the chunks before them are uploaded.
+	 * @param bodies the request bodies of the transactions, JSON objects without line breaks
+	 * @return the result of every transaction, in order, with the index of the transaction in the input
+	 * @throws IllegalStateException if a chunk is not accepted as a batch
+	 */
+	public List<Result> importBodies(Iterable<String> bodies) {
+		List<Result> results = new ArrayList<>();
+		Deque<CompletableFuture<List<Result>>> uploads = new ArrayDeque<>();
+		StringBuilder chunk = new StringBuilder();
+		int chunkStart = 0;
+		int index = 0;
+		for (String body : bodies) {
+			chunk.append(body).append('\n');
+			if (++index - chunkStart == chunkSize) {
+				submit(uploads, results, chunk.toString(), chunkStart);
+				chunk.setLength(0);
+				chunkStart = index;
+			}
+		}
+		if (index > chunkStart) {
+			submit(uploads, results, chunk.toString(), chunkStart);
+		}
+		while (!uploads.isEmpty()) {
+			results.addAll(join(uploads.remove()));
+		}
+		return results;
+	}
+
+	/**
+	 * Imports transactions that are all expected to be valid.
+	 * @return the ids of the transactions, in order
+	 * @throws IllegalStateException if a transaction is rejected
+	 */
+	public List<Integer> importValid(Iterable<JSONObject> transactions) {
+		return ids(importAll(transactions));
+	}
+
+	/**
+	 * Imports serialized transactions that are all expected to be valid.
+	 * @return the ids of the transactions, in order
+	 * @throws IllegalStateException if a transaction is rejected
+	 */
+	public List<Integer> importValidBodies(Iterable<String> bodies) {
+		return ids(importBodies(bodies));
+	}
+
+	private static List<Integer> ids(List<Result> results) {
+		List<Integer> ids = new ArrayList<>();
+		for (Result result : results) {
+			if (!result.isCreated()) {
+				throw new IllegalStateException("Transaction " + result.getIndex() + " was rejected with status "
+						+ result.getStatus() + ": " + result.getError());
+			}
+			ids.add(result.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * Starts the upload of a chunk once fewer than the maximum number of chunks are in flight.
+	 */
+	private void submit(Deque<CompletableFuture<List<Result>>> uploads, List<Result> results, String body,
+			int chunkStart) {
+		if (uploads.size() == inFlight) {
+			results.addAll(join(uploads.remove()));
+		}
+		uploads.add(upload(body, chunkStart));
+	}
+
+	private CompletableFuture<List<Result>> upload(String body, int chunkStart) {
+		return CompletableFuture.supplyAsync(() -> {
+			if (!batchSupported) {
+				return postEach(body, chunkStart);
+			}
+			Response response = given().
+					header("X-session-ID", sessionId).
+					contentType("application/x-ndjson").
+					body(body).
+				when().
+					post("/transactions/batch");
+			if (response.statusCode() == 404 || response.statusCode() == 405) {
+				batchSupported = false;
+				return postEach(body, chunkStart);
+			}
+			if (response.statusCode() != 201 && response.statusCode() != 207) {
+				throw new IllegalStateException("POST /transactions/batch returned " + response.statusCode());
+			}
+			List<Result> results = Arrays.asList(response.as(Result[].class));
+			for (Result result : results) {
+				result.setIndex(chunkStart + result.getIndex());
+			}
+			return results;
+		}, UPLOADS);
+	}
+
+	/**
+	 * Posts the transactions of a chunk one at a time, for servers without the batch endpoint.
+	 */
+	private List<Result> postEach(String body, int chunkStart) {
+		List<Result> results = new ArrayList<>();
+		for (String line : body.split("\n")) {
+			Response response = given().
+					header("X-session-ID", sessionId).
+					contentType("application/json").
+					body(line).
+				when().
+					post("/transactions");
+			Result result = new Result();
+			result.setIndex(chunkStart + results.size());
+			result.setStatus(response.statusCode());
+			if (response.statusCode() == 201) {
+				result.setId(response.jsonPath().getInt("id"));
+			} else {
+				result.setError(response.asString());
+			}
+			results.add(result);
+		}
+		return results;
+	}
+
+	private static List<Result> join(CompletableFuture<List<Result>> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package nl.utwente.ing.testsuite;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import nl.utwente.ing.model.Transaction;
+import nl.utwente.ing.model.TransactionType;
+
+/**
+ * Populates a session with a large number of generated transactions.
+ * Every field of a transaction is drawn from a pluggable {@link Distribution}, and all
+ * values come from one seeded {@link Random} so a seed always generates the same data.
+ * Transactions are generated on the calling thread while they are imported in chunks.
+ */
+public class TransactionSeeder {
+	/**
+	 * Produces the value of one transaction field.
+	 */
+	public interface Distribution<T> {
+		T next(Random random);
+	}
+
+	private Distribution<Instant> dates;
+	private Distribution<Double> amounts = uniformAmounts(1, 1000);
+	private Distribution<String> ibans = ibanPool(100);
+	private Distribution<TransactionType> types = depositRatio(0.5);
+	private Distribution<String> descriptions = constant("");
+	private long seed = 42;
+	private int chunkSize = TransactionImporter.DEFAULT_CHUNK_SIZE;
+	private int inFlight = 1;
+
+	public TransactionSeeder() {
+		Instant now = Instant.now();
+		dates = uniformDates(now.minus(Duration.ofDays(30)), now);
+	}
+
+	public TransactionSeeder withDates(Distribution<Instant> dates) {
+		this.dates = dates;
+		return this;
+	}
+
+	public TransactionSeeder withAmounts(Distribution<Double> amounts) {
+		this.amounts = amounts;
+		return this;
+	}
+
+	public TransactionSeeder withIbans(Distribution<String> ibans) {
+		this.ibans = ibans;
+		return this;
+	}
+
+	public TransactionSeeder withTypes(Distribution<TransactionType> types) {
+		this.types = types;
+		return this;
+	}
+
+	public TransactionSeeder withDescriptions(Distribution<String> descriptions) {
+		this.descriptions = descriptions;
+		return this;
+	}
+
+	public TransactionSeeder withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * @see TransactionImporter#withChunkSize(int)
+	 */
+	public TransactionSeeder withChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * @param inFlight the number of chunks that are uploaded at the same time, more than one is faster but
+	 * does not preserve the order of the transactions, see {@link TransactionImporter#withInFlight(int)}
+	 */
+	public TransactionSeeder withInFlight(int inFlight) {
+		this.inFlight = inFlight;
+		return this;
+	}
+
+	/**
+	 * Generates a single transaction from the configured distributions.
+	 * @param random the source of randomness
+	 * @return a transaction without id and category
+	 */
+	public Transaction generate(Random random) {
+		Transaction transaction = new Transaction();
+		transaction.setDate(dates.next(random));
+		transaction.setAmount(amounts.next(random));
+		transaction.setExternalIBAN(ibans.next(random));
+		transaction.setType(types.next(random));
+		transaction.setDescription(descriptions.next(random));
+		return transaction;
+	}
+
+	/**
+	 * Imports n generated transactions into a session with {@link TransactionImporter}, which falls back to
+	 * one POST /transactions per transaction on servers without the batch endpoint. With one chunk in flight
+	 * the transactions arrive in the order they are generated, so a seed always gives the same session.
+	 * @param sessionId the session to populate
+	 * @param n number of transactions to import
+	 * @param listener called on the calling thread with every generated transaction, e.g. to compute an oracle
+	 * @return the number of transactions imported
+	 * @throws IllegalStateException if a transaction is rejected
+	 */
+	public int seed(String sessionId, int n, Consumer<Transaction> listener) {
+		Random random = new Random(seed);
+		// The transactions are generated while the chunks before them are uploaded
+		Iterable<String> bodies = () -> Stream.generate(() -> generate(random)).limit(n)
+				.peek(listener)
+				.map(Transaction::toStringData)
+				.iterator();
+		long start = System.nanoTime();
+		int imported = new TransactionImporter(sessionId)
+				.withChunkSize(chunkSize)
+				.withInFlight(inFlight)
+				.importValidBodies(bodies).size();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("Seeded %d transactions in %.1fs (%.0f/s)", imported, seconds,
+				imported / Math.max(seconds, 1e-9)));
+		return imported;
+	}
+
+	public int seed(String sessionId, int n) {
+		return seed(sessionId, n, t -> { });
+	}
+
+	// ---- Distributions ----
+
+	public static <T> Distribution<T> constant(T value) {
+		return random -> value;
+	}
+
+	/**
+	 * Dates uniformly distributed between two instants, truncated to the minute like the API dates.
+	 */
+	public static Distribution<Instant> uniformDates(Instant from, Instant to) {
+		long fromMinute = from.getEpochSecond() / 60;
+		long range = Math.max(1, to.getEpochSecond() / 60 - fromMinute);
+		return random -> Instant.ofEpochSecond((fromMinute + (long) (random.nextDouble() * range)) * 60);
+	}
+
+	/**
+	 * Amounts uniformly distributed between min and max, rounded to whole cents.
+	 */
+	public static Distribution<Double> uniformAmounts(double min, double max) {
+		long minCents = Math.round(min * 100);
+		long range = Math.round(max * 100) - minCents;
+		return random -> (minCents + (long) (random.nextDouble() * (range + 1))) / 100.0;
+	}
+
+	/**
+	 * Values drawn uniformly from the given values.
+	 */
+	public static Distribution<String> oneOf(String... values) {
+		return random -> values[random.nextInt(values.length)];
+	}
+
+	/**
+	 * IBANs drawn uniformly from a fixed pool of the given size.
+	 */
+	public static Distribution<String> ibanPool(int size) {
+		String[] pool = new String[size];
+		for (int i = 0; i < size; i++) {
+			pool[i] = String.format("NL%02dTEST%010d", i % 100, i);
+		}
+		return random -> pool[random.nextInt(size)];
+	}
+
+	/**
+	 * Deposits with the given probability, withdrawals otherwise.
+	 */
+	public static Distribution<TransactionType> depositRatio(double depositProbability) {
+		return random -> random.nextDouble() < depositProbability ? TransactionType.deposit : TransactionType.withdrawal;
+	}
+}
@@ -0,0 +1,109 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link CandleStickAggregator} against candlesticks that are computed by replaying all changes in
+ * order of time, for random changes that are added and removed in any order of time.
+ */
+public class CandleStickAggregatorTest {
+	private static final long BASE = 1_500_000_000L;
+
+	private final CandleStickAggregator aggregator = new CandleStickAggregator();
+	// The time and the amount in cents of every change, by id
+	private final Map<Long, long[]> changes = new TreeMap<>();
+
+	@Test
+	public void testOutOfOrder() {
+		aggregator.add(1, BASE + 30, 10);
+		aggregator.add(2, BASE + 10, -20);
+		aggregator.add(3, BASE + 20, 5);
+		// -20, -15, -5 within the hour of the changes
+		CandleStick candleStick = aggregator.getCandleSticks(TimeInterval.HOUR, BASE + 30, 1)[0];
+		assertEquals(0, candleStick.getOpen(), 0);
+		assertEquals(-5, candleStick.getClose(), 0);
+		assertEquals(0, candleStick.getHigh(), 0);
+		assertEquals(-20, candleStick.getLow(), 0);
+		assertEquals(35, candleStick.getVolume(), 0);
+
+		aggregator.remove(2);
+		candleStick = aggregator.getCandleSticks(TimeInterval.HOUR, BASE + 30, 1)[0];
+		assertEquals(15, candleStick.getHigh(), 0);
+		assertEquals(0, candleStick.getLow(), 0);
+		assertEquals(15, candleStick.getVolume(), 0);
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(Long.getLong("aggregator.seed", 20180408));
+		long id = 0;
+		for (int step = 0; step < 20000; step++) {
+			if (!changes.isEmpty() && random.nextInt(4) == 0) {
+				List<Long> ids = new ArrayList<>(changes.keySet());
+				long removed = ids.get(random.nextInt(ids.size()));
+				changes.remove(removed);
+				assertEquals(true, aggregator.remove(removed));
+			} else {
+				long time = BASE + (long) (random.nextDouble() * 3e7);
+				long cents = random.nextInt(20001) - 10000;
+				changes.put(id, new long[] {time, cents});
+				aggregator.add(id++, time, cents / 100.0);
+			}
+			if (random.nextInt(20) == 0) {
+				TimeInterval interval = TimeInterval.values()[random.nextInt(TimeInterval.values().length)];
+				check(interval, BASE + (long) (random.nextDouble() * 3.5e7), 1 + random.nextInt(60));
+			}
+		}
+		assertEquals(changes.size(), aggregator.size());
+	}
+
+	private void check(TimeInterval interval, long now, int intervals) {
+		List<long[]> sorted = new ArrayList<>();
+		for (Map.Entry<Long, long[]> entry : changes.entrySet()) {
+			sorted.add(new long[] {entry.getValue()[0], entry.getKey(), entry.getValue()[1]});
+		}
+		sorted.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+		long[] starts = new long[intervals + 1];
+		for (int i = 0; i <= intervals; i++) {
+			starts[i] = Instant.ofEpochSecond(interval.truncate(now)).atZone(ZoneOffset.UTC)
+					.minus(intervals - 1 - i, interval.getUnit()).toEpochSecond();
+		}
+
+		CandleStick[] candleSticks = aggregator.getCandleSticks(interval, now, intervals);
+		long balance = 0;
+		int next = 0;
+		while (next < sorted.size() && sorted.get(next)[0] < starts[0]) {
+			balance += sorted.get(next++)[2];
+		}
+		for (int i = 0; i < intervals; i++) {
+			long open = balance;
+			long high = balance;
+			long low = balance;
+			long volume = 0;
+			while (next < sorted.size() && sorted.get(next)[0] < starts[i + 1]) {
+				balance += sorted.get(next)[2];
+				volume += Math.abs(sorted.get(next++)[2]);
+				high = Math.max(high, balance);
+				low = Math.min(low, balance);
+			}
+			CandleStick candleStick = candleSticks[i];
+			String message = interval + " candlestick " + i;
+			assertEquals(message, starts[i], candleStick.getTimestamp());
+			assertEquals(message, open, Math.round(candleStick.getOpen() * 100));
+			assertEquals(message, balance, Math.round(candleStick.getClose() * 100));
+			assertEquals(message, high, Math.round(candleStick.getHigh() * 100));
+			assertEquals(message, low, Math.round(candleStick.getLow() * 100));
+			assertEquals(message, volume, Math.round(candleStick.getVolume() * 100));
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the index of {@link CategoryRuleMatcher} on the edge cases of the matching rules, and on random rules
+ * and transactions against a linear scan over all rules in order of id.
+ */
+public class CategoryRuleMatcherTest {
+	private static final String IBAN = "NL12ABNA0457688830";
+	private static final String OTHER_IBAN = "NL39RABO0300065264";
+
+	private final CategoryRuleMatcher matcher = new CategoryRuleMatcher();
+
+	@Test
+	public void testEmptyDescriptionAndIban() {
+		CategoryRule any = add(1, "", "", "withdrawal");
+		assertSame(any, match("Groceries", IBAN, "withdrawal"));
+		assertSame(any, match("", "", "withdrawal"));
+		assertNull(match("Groceries", IBAN, "deposit"));
+	}
+
+	@Test
+	public void testIban() {
+		CategoryRule rule = add(1, "Groceries", IBAN, "withdrawal");
+		assertSame(rule, match("Groceries", IBAN, "withdrawal"));
+		assertNull(match("Groceries", OTHER_IBAN, "withdrawal"));
+		assertNull(match("Groceries", "", "withdrawal"));
+
+		CategoryRule anyIban = add(2, "Groceries", "", "withdrawal");
+		assertSame(rule, match("Groceries", IBAN, "withdrawal"));
+		assertSame(anyIban, match("Groceries", OTHER_IBAN, "withdrawal"));
+	}
+
+	@Test
+	public void testDescriptionIsContained() {
+		CategoryRule rule = add(1, "Groceries", "", "withdrawal");
+		assertSame(rule, match("Weekly Groceries at the market", IBAN, "withdrawal"));
+		assertNull(match("groceries", IBAN, "withdrawal"));
+		assertNull(match("Grocerie", IBAN, "withdrawal"));
+	}
+
+	@Test
+	public void testOverlappingDescriptions() {
+		CategoryRule hers = add(1, "hers", "", "deposit");
+		CategoryRule she = add(2, "she", "", "deposit");
+		CategoryRule he = add(3, "he", "", "deposit");
+		add(4, "his", "", "deposit");
+		// All of "she", "he" and "hers" end inside "ushers", the rule with the lowest id wins
+		assertSame(hers, match("ushers", IBAN, "deposit"));
+		assertSame(she, match("ushe", IBAN, "deposit"));
+		assertSame(he, match("the", IBAN, "deposit"));
+		assertNull(match("hi", IBAN, "deposit"));
+	}
+
+	@Test
+	public void testLowestIdAcrossGroups() {
+		add(3, "Groceries", IBAN, "withdrawal");
+		CategoryRule first = add(2, "", "", "withdrawal");
+		add(1, "Rent", "", "withdrawal");
+		assertSame(first, match("Groceries", IBAN, "withdrawal"));
+	}
+
+	@Test
+	public void testRemove() {
+		add(1, "Groceries", "", "withdrawal");
+		CategoryRule second = add(2, "Gro", "", "withdrawal");
+		assertTrue(matcher.remove(1));
+		assertFalse(matcher.remove(1));
+		assertEquals(1, matcher.size());
+		assertSame(second, match("Groceries", IBAN, "withdrawal"));
+
+		// The last rule with a description takes it out of the automaton
+		assertTrue(matcher.remove(2));
+		assertNull(match("Groceries", IBAN, "withdrawal"));
+		CategoryRule back = add(1, "Groceries", "", "withdrawal");
+		assertSame(back, match("Groceries", IBAN, "withdrawal"));
+	}
+
+	@Test
+	public void testReplaceSameId() {
+		add(1, "Groceries", "", "withdrawal");
+		CategoryRule replaced = add(1, "Rent", IBAN, "withdrawal");
+		assertEquals(1, matcher.size());
+		assertNull(match("Groceries", IBAN, "withdrawal"));
+		assertSame(replaced, match("Rent", IBAN, "withdrawal"));
+	}
+
+	@Test
+	public void testAccept() {
+		add(1, "Groceries", "", "withdrawal");
+		CategoryRule second = add(2, "", "", "withdrawal");
+		Transaction transaction = transaction("Groceries", IBAN, "withdrawal");
+		assertSame(second, matcher.match(transaction, rule -> rule.getId() != 1));
+		assertNull(matcher.match(transaction, rule -> false));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(Long.getLong("matcher.seed", 20180408));
+		String[] descriptions = {"", "a", "ab", "ba", "abc", "bca", "c", "cab", "aaa"};
+		String[] ibans = {"", IBAN, OTHER_IBAN};
+		List<CategoryRule> rules = new ArrayList<>();
+		for (int step = 0; step < 20000; step++) {
+			if (rules.isEmpty() || random.nextInt(3) > 0) {
+				CategoryRule rule = add(random.nextInt(200), descriptions[random.nextInt(descriptions.length)],
+						ibans[random.nextInt(ibans.length)], random.nextBoolean() ? "deposit" : "withdrawal");
+				rules.removeIf(existing -> existing.getId() == rule.getId());
+				rules.add(rule);
+			} else {
+				CategoryRule rule = rules.remove(random.nextInt(rules.size()));
+				assertTrue(matcher.remove(rule.getId()));
+			}
+			StringBuilder description = new StringBuilder();
+			for (int i = random.nextInt(8); i > 0; i--) {
+				description.append("abcx".charAt(random.nextInt(4)));
+			}
+			Transaction transaction = transaction(description.toString(), ibans[random.nextInt(ibans.length)],
+					random.nextBoolean() ? "deposit" : "withdrawal");
+			int rejected = random.nextInt(200);
+			CategoryRule expected = rules.stream()
+					.filter(rule -> rule.getId() != rejected && CategoryRuleMatcher.matches(rule, transaction))
+					.min(Comparator.comparingInt(CategoryRule::getId)).orElse(null);
+			assertSame(transaction.getDescription() + " " + transaction.getExternalIBAN(), expected,
+					matcher.match(transaction, rule -> rule.getId() != rejected));
+			assertEquals(rules.size(), matcher.size());
+		}
+	}
+
+	private CategoryRule add(int id, String description, String iBAN, String type) {
+		CategoryRule rule = new CategoryRule(id, description, iBAN, type, 1, false);
+		matcher.add(rule);
+		return rule;
+	}
+
+	private CategoryRule match(String description, String externalIBAN, String type) {
+		return matcher.match(transaction(description, externalIBAN, type), rule -> true);
+	}
+
+	private static Transaction transaction(String description, String externalIBAN, String type) {
+		Transaction transaction = new Transaction(1, "2018-04-08T21:15Z", 10, externalIBAN, type, null);
+		transaction.setDescription(description);
+		return transaction;
+	}
+}
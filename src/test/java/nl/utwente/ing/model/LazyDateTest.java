@@ -0,0 +1,38 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.time.format.DateTimeParseException;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link LazyDate} parses dates at their offset and takes dates without an offset as UTC.
+ */
+public class LazyDateTest {
+	private static final long UTC = 1523222100;
+
+	@Test
+	public void testOffsets() {
+		assertEquals(UTC, LazyDate.parse("2018-04-08T21:15Z"));
+		assertEquals(UTC, LazyDate.parse("2018-04-08T21:15:00"));
+		assertEquals(UTC, LazyDate.parse("2018-04-08T23:15+02:00"));
+		assertEquals(UTC, LazyDate.parse("2018-04-08T16:15-05:00"));
+		assertEquals(UTC, LazyDate.parse("2018-04-08T23:15+02:00[Europe/Amsterdam]"));
+		assertEquals(UTC, LazyDate.of("2018-04-08T23:15+02:00").epochSecond());
+	}
+
+	@Test
+	public void testFormat() {
+		assertEquals("2018-04-08T21:15Z", LazyDate.format(UTC + 59));
+		assertEquals("2018-04-08T21:15Z", LazyDate.of(UTC + 59).toString());
+		assertEquals("2018-04-08T23:15+02:00", LazyDate.of("2018-04-08T23:15+02:00").toString());
+	}
+
+	@Test(expected = DateTimeParseException.class)
+	public void testInvalid() {
+		assertFalse(LazyDate.of("2018-04-08").isValid());
+		LazyDate.parse("2018-04-08");
+	}
+}
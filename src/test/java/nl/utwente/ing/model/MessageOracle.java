@@ -0,0 +1,116 @@
+package nl.utwente.ing.model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the messages a stream of transactions should generate by scanning the whole stream for every
+ * transaction. It is far too slow for a server, which is the point: it is simple enough to be obviously
+ * right, so {@link ThresholdDetector} can be checked against it on randomized streams.
+ * The balance window of a transaction ends at the latest date posted so far, so a back-dated transaction
+ * changes the balance at that date. Only withdrawals that are not back-dated are checked against the
+ * message rules, and the spending window starts at the start of the hour 30 days before the withdrawal.
+ */
+class MessageOracle {
+	private static final long SPENDING_WINDOW = TimeUnit.DAYS.toSeconds(30);
+	private static final long HOUR = TimeUnit.HOURS.toSeconds(1);
+
+	private final List<MessageRule> messageRules = new ArrayList<>();
+	private final List<Long> dates = new ArrayList<>();
+	// The latest date up to and including every transaction
+	private final List<Long> clocks = new ArrayList<>();
+	private final List<Long> amounts = new ArrayList<>();
+	private final List<Integer> categories = new ArrayList<>();
+	// The balance after every transaction
+	private final List<Long> balances = new ArrayList<>();
+	private final List<Message> messages = new ArrayList<>();
+
+	/**
+	 * Adds a message rule, rules must be added in order of id.
+	 */
+	public void addMessageRule(MessageRule messageRule) {
+		messageRules.add(messageRule);
+	}
+
+	/**
+	 * Adds a transaction and the messages it generates.
+	 * @param epochSecond the date of the transaction, truncated to the minute
+	 * @param amount the amount of the transaction
+	 * @param type the type of the transaction
+	 * @param categoryId the id of the category of the transaction, or -1 if it has none
+	 */
+	public void add(long epochSecond, double amount, TransactionType type, int categoryId) {
+		long cents = Math.round(amount * 100) * (type == TransactionType.deposit ? 1 : -1);
+		long previous = balances.isEmpty() ? 0 : balances.get(balances.size() - 1);
+		long clock = clocks.isEmpty() ? epochSecond : Math.max(clocks.get(clocks.size() - 1), epochSecond);
+		boolean inFuture = clocks.isEmpty() || epochSecond >= clocks.get(clocks.size() - 1);
+		long balance = previous + cents;
+
+		if (previous >= 0 && balance < 0) {
+			messages.add(new Message(0, "Balance dropped below zero!", epochSecond, false, "warning"));
+		}
+		if (balance > previous && isNewHigh(epochSecond, clock, balance)) {
+			messages.add(new Message(0, "Your balance reached a new high of " + balance / 100.0 + "!", epochSecond,
+					false, "info"));
+		}
+
+		dates.add(epochSecond);
+		clocks.add(clock);
+		amounts.add(cents);
+		categories.add(categoryId);
+		balances.add(balance);
+
+		if (inFuture && type == TransactionType.withdrawal && categoryId >= 0) {
+			long spending = 0;
+			long from = epochSecond / HOUR * HOUR - SPENDING_WINDOW;
+			for (int i = 0; i < dates.size(); i++) {
+				if (categories.get(i) == categoryId && amounts.get(i) < 0 && dates.get(i) >= from
+						&& dates.get(i) <= epochSecond) {
+					spending -= amounts.get(i);
+				}
+			}
+			for (MessageRule messageRule : messageRules) {
+				if (messageRule.getCategory_id() == categoryId && spending / 100.0 >= messageRule.getValue()) {
+					messages.add(new Message(0, "Spending exceeded threshold of " + messageRule.getValue()
+							+ " on category with id " + categoryId + ".", epochSecond, false,
+							messageRule.getType().toString()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the messages of all transactions so far, in order
+	 */
+	public List<Message> getMessages() {
+		return messages;
+	}
+
+	/**
+	 * Whether a balance is higher than every balance in the three months up to the clock, including the
+	 * balance at the start of that window, once the first transaction is at least three months old.
+	 */
+	private boolean isNewHigh(long epochSecond, long clock, long balance) {
+		long windowStart = Instant.ofEpochSecond(clock).atZone(ZoneOffset.UTC).minusMonths(3).toEpochSecond();
+		long first = Math.min(epochSecond, dates.stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE));
+		if (balances.isEmpty() || first > windowStart) {
+			return false;
+		}
+		int before = -1;
+		long highest = Long.MIN_VALUE;
+		for (int i = 0; i < balances.size(); i++) {
+			if (clocks.get(i) >= windowStart) {
+				highest = Math.max(highest, balances.get(i));
+			} else {
+				before = i;
+			}
+		}
+		if (before >= 0) {
+			highest = Math.max(highest, balances.get(before));
+		}
+		return balance > highest;
+	}
+}
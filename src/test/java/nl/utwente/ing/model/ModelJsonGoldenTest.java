@@ -0,0 +1,177 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Checks that the JSON of the model classes is byte for byte the JSON that org.json gives for the same fields,
+ * which was how the model classes wrote it before {@link JsonWriter}. The expected JSON is built with
+ * JSONObject exactly like the model classes used to, for edge cases and for random objects.
+ */
+public class ModelJsonGoldenTest {
+	private static final int RANDOM_OBJECTS = 10000;
+	private static final String[] STRINGS = {"", "Groceries", "NL12ABNA0457688830", "quote \" and backslash \\",
+			"</script>", "a/b", "tab\tnew line\n\r\f\b", "\u0000\u001f\u007f\u0080\u009f ", "  €℀",
+			"café 😀", "2018-04-08T21:15Z"};
+	private static final double[] NUMBERS = {0, -0.0, 1, 1000, 12.5, 0.1, 213.04, 1e7, 123456789.123, 1e21, 1e-7,
+			-42.42, Double.MAX_VALUE, Double.MIN_VALUE, 0.30000000000000004};
+
+	private final Random random = new Random(Long.getLong("golden.seed", 20180408));
+
+	@Test
+	public void testTransaction() {
+		for (int i = 0; i < RANDOM_OBJECTS; i++) {
+			Transaction transaction = new Transaction();
+			transaction.setId(random.nextInt(1000) - 1);
+			transaction.setAmount(number());
+			transaction.setDate(random.nextInt(4) == 0 ? null : "2018-04-08T21:15Z");
+			transaction.setDescription(string());
+			transaction.setExternalIBAN(string());
+			transaction.setType(random.nextInt(4) == 0 ? null : TransactionType.values()[random.nextInt(2)]);
+			transaction.setCategory(random.nextBoolean() ? null : new Category(random.nextInt(100), string()));
+			assertEquals(new JSONObject()
+					.put("id", transaction.getId())
+					.put("amount", transaction.getAmount())
+					.put("categoryID", transaction.CategoryID())
+					.put("date", transaction.getDate())
+					.put("description", transaction.getDescription())
+					.put("externalIBAN", transaction.getExternalIBAN())
+					.put("type", transaction.getType()).toString(), transaction.toString());
+			assertEquals(new JSONObject()
+					.put("amount", transaction.getAmount())
+					.put("date", transaction.getDate())
+					.put("description", transaction.getDescription())
+					.put("externalIBAN", transaction.getExternalIBAN())
+					.put("type", transaction.getType()).toString(), transaction.toStringData());
+		}
+	}
+
+	@Test
+	public void testCategoryRule() {
+		for (int i = 0; i < RANDOM_OBJECTS; i++) {
+			CategoryRule categoryRule = new CategoryRule();
+			categoryRule.setDescription(string());
+			categoryRule.setiBAN(string());
+			categoryRule.setType(TransactionType.values()[random.nextInt(2)]);
+			categoryRule.setCategory_id(random.nextInt());
+			categoryRule.setApplyOnHistory(random.nextBoolean());
+			assertEquals(new JSONObject()
+					.put("description", categoryRule.getDescription())
+					.put("iBAN", categoryRule.getiBAN())
+					.put("type", categoryRule.getType().toString())
+					.put("category_id", categoryRule.getCategory_id())
+					.put("applyOnHistory", categoryRule.isApplyOnHistory()).toString(), categoryRule.toString());
+			assertEquals(new JSONObject()
+					.put("description", categoryRule.getDescription())
+					.put("iBAN", categoryRule.getiBAN())
+					.put("type", categoryRule.getType().toString())
+					.put("category_id", categoryRule.getCategory_id()).toString(), categoryRule.toStringData());
+		}
+	}
+
+	@Test
+	public void testSavingGoal() {
+		for (int i = 0; i < RANDOM_OBJECTS; i++) {
+			SavingGoal savingGoal = new SavingGoal();
+			savingGoal.setName(string());
+			savingGoal.setSavePerMonth(number());
+			savingGoal.setMinBalanceRequired(number());
+			savingGoal.setGoal(number());
+			savingGoal.setBalance(number());
+			assertEquals(new JSONObject()
+					.put("name", savingGoal.getName())
+					.put("savePerMonth", savingGoal.getSavePerMonth())
+					.put("minBalanceRequired", savingGoal.getMinBalanceRequired())
+					.put("goal", savingGoal.getGoal())
+					.put("balance", savingGoal.getBalance()).toString(), savingGoal.toStringData());
+		}
+	}
+
+	@Test
+	public void testPaymentRequest() {
+		for (int i = 0; i < RANDOM_OBJECTS; i++) {
+			PaymentRequest paymentRequest = new PaymentRequest(random.nextInt(100), string(),
+					random.nextInt(Integer.MAX_VALUE), number(), random.nextInt(10), false, new ArrayList<>());
+			if (random.nextInt(4) == 0) {
+				paymentRequest.setDue_date(null);
+			}
+			assertEquals(new JSONObject()
+					.put("amount", paymentRequest.getAmount())
+					.put("description", paymentRequest.getDescription())
+					.put("due_date", paymentRequest.getDue_date())
+					.put("number_of_requests", paymentRequest.getNumber_of_requests()).toString(),
+					paymentRequest.toStringData());
+		}
+	}
+
+	@Test
+	public void testMessageRule() {
+		for (int i = 0; i < RANDOM_OBJECTS; i++) {
+			MessageRule messageRule = new MessageRule(random.nextInt(100),
+					MessageType.values()[random.nextInt(MessageType.values().length)].toString(), number(),
+					random.nextInt());
+			assertEquals(new JSONObject()
+					.put("type", messageRule.getType().toString())
+					.put("value", messageRule.getValue())
+					.put("category_id", messageRule.getCategory_id()).toString(), messageRule.toStringData());
+		}
+	}
+
+	@Test(expected = JSONException.class)
+	public void testNonFiniteNumber() {
+		SavingGoal savingGoal = new SavingGoal();
+		savingGoal.setName("Holiday");
+		savingGoal.setGoal(Double.NaN);
+		savingGoal.toStringData();
+	}
+
+	/**
+	 * A writer that is used while it writes another object must not mix up the two.
+	 */
+	@Test
+	public void testNestedObjects() {
+		JsonWriter.Fields fields = JsonWriter.fields("outer", "inner");
+		String inner = JsonWriter.start(fields).value("a").value(JsonWriter.start(fields).value("b").value(1).end())
+				.end();
+		assertEquals(new JSONObject().put("outer", "a").put("inner", "{\"outer\":\"b\",\"inner\":1}").toString(), inner);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingValue() {
+		JsonWriter.start(JsonWriter.fields("name", "goal")).value("Holiday").end();
+	}
+
+	private String string() {
+		if (random.nextInt(8) == 0) {
+			return null;
+		}
+		if (random.nextBoolean()) {
+			return STRINGS[random.nextInt(STRINGS.length)];
+		}
+		char[] chars = new char[random.nextInt(20)];
+		for (int i = 0; i < chars.length; i++) {
+			// Mostly ASCII with some control and special characters
+			chars[i] = (char) (random.nextInt(4) == 0 ? random.nextInt(0x2200) : 0x20 + random.nextInt(0x5f));
+		}
+		return new String(chars);
+	}
+
+	private double number() {
+		switch (random.nextInt(4)) {
+		case 0:
+			return NUMBERS[random.nextInt(NUMBERS.length)];
+		case 1:
+			return random.nextInt(1000000) / 100.0;
+		case 2:
+			return Double.longBitsToDouble(random.nextLong() & 0x7fefffffffffffffL) * (random.nextBoolean() ? 1 : -1);
+		default:
+			return random.nextGaussian() * 1000;
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link SavingGoalEngine} against a replay that visits the start of every month between two
+ * transactions and every saving goal in order of id, for random saving goals and transactions with back-dated
+ * dates and jumps of years.
+ */
+public class SavingGoalEngineTest {
+	private static final long START = LocalDate.of(2018, 1, 1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+
+	private final List<String> events = new ArrayList<>();
+	private final SavingGoalEngine.Listener listener = new SavingGoalEngine.Listener() {
+		@Override
+		public void setAside(long epochSecond, double amount) {
+			events.add("set aside " + amount + " at " + epochSecond);
+		}
+
+		@Override
+		public void filled(SavingGoal savingGoal, long epochSecond) {
+			events.add("filled " + savingGoal.getId() + " at " + epochSecond);
+		}
+	};
+	private SavingGoalEngine engine = new SavingGoalEngine(listener);
+
+	@Test
+	public void testMonthStarts() {
+		engine.add(savingGoal(1, 100, 0, 250));
+		engine.advance(START + 10, 0);
+		// Three month starts pass with 1000 on the account, the last one only needs 50
+		engine.advance(START + 100 * 86400, 1000);
+		assertEquals(4, events.size());
+		assertEquals("filled 1 at " + monthStart(START, 3), events.get(2));
+	}
+
+	@Test
+	public void testBackDated() {
+		engine.add(savingGoal(1, 100, 0, 1000));
+		engine.advance(START + 40 * 86400, 1000);
+		engine.advance(START + 10, 1000);
+		assertEquals(START + 40 * 86400, engine.getClock());
+		engine.advance(START + 45 * 86400, 1000);
+		assertEquals(0, events.size());
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(Long.getLong("savings.seed", 20180408));
+		for (int run = 0; run < 200; run++) {
+			events.clear();
+			engine = new SavingGoalEngine(listener);
+			Map<Integer, SavingGoal> goals = new TreeMap<>();
+			Map<Integer, SavingGoal> replayed = new TreeMap<>();
+			List<String> expected = new ArrayList<>();
+			long clock = Long.MIN_VALUE;
+			long time = START;
+			long cents = 0;
+			for (int step = 0; step < 200; step++) {
+				int id = 1 + random.nextInt(20);
+				switch (random.nextInt(6)) {
+				case 0:
+					SavingGoal savingGoal = savingGoal(id, random.nextInt(200), random.nextInt(500),
+							random.nextInt(2000));
+					goals.put(id, savingGoal);
+					engine.add(savingGoal);
+					replayed.put(id, savingGoal(id, savingGoal.getSavePerMonth(), savingGoal.getMinBalanceRequired(),
+							savingGoal.getGoal()));
+					break;
+				case 1:
+					goals.remove(id);
+					engine.remove(id);
+					replayed.remove(id);
+					break;
+				default:
+					time = next(random, time);
+					engine.advance(time, cents / 100.0);
+					if (time > clock) {
+						if (clock != Long.MIN_VALUE) {
+							cents -= replay(replayed, clock, time, cents, expected);
+						}
+						clock = time;
+					}
+					cents += (random.nextInt(2000) - 700) * 100L;
+				}
+				assertEquals(expected, events);
+				for (SavingGoal savingGoal : goals.values()) {
+					assertEquals(replayed.get(savingGoal.getId()).getBalance(), savingGoal.getBalance(), 1e-9);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visits the start of every month after the clock up to the time, and every saving goal in order of id.
+	 * @return the total amount set aside in cents
+	 */
+	private static long replay(Map<Integer, SavingGoal> savingGoals, long clock, long time, long cents,
+			List<String> expected) {
+		long total = 0;
+		for (long month = monthStart(clock, 1); month <= time; month = monthStart(month, 1)) {
+			long moved = 0;
+			for (SavingGoal savingGoal : savingGoals.values()) {
+				if (savingGoal.getSavePerMonth() <= 0 || savingGoal.getBalance() >= savingGoal.getGoal()) {
+					continue;
+				}
+				double amount = Math.min(savingGoal.getSavePerMonth(), savingGoal.getGoal() - savingGoal.getBalance());
+				double balance = (cents - total - moved) / 100.0;
+				if (balance >= savingGoal.getMinBalanceRequired() && balance >= amount) {
+					moved += Math.round(amount * 100);
+					savingGoal.setBalance(savingGoal.getBalance() + amount);
+					if (savingGoal.getBalance() >= savingGoal.getGoal()) {
+						expected.add("filled " + savingGoal.getId() + " at " + month);
+					}
+				}
+			}
+			if (moved != 0) {
+				expected.add("set aside " + moved / 100.0 + " at " + month);
+			}
+			total += moved;
+		}
+		return total;
+	}
+
+	/**
+	 * @return the start of the month a number of months after the month of a time, in UTC
+	 */
+	private static long monthStart(long epochSecond, int months) {
+		ZonedDateTime date = ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+		return date.toLocalDate().withDayOfMonth(1).plusMonths(months).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+	}
+
+	/**
+	 * @return the date of the next transaction: mostly days later, sometimes back-dated and sometimes years later
+	 */
+	private static long next(Random random, long time) {
+		switch (random.nextInt(8)) {
+		case 0:
+			return time - random.nextInt(100 * 86400);
+		case 1:
+			return time + random.nextInt(20 * 366) * 86400L;
+		default:
+			return time + random.nextInt(40 * 86400);
+		}
+	}
+
+	private static SavingGoal savingGoal(int id, double savePerMonth, double minBalanceRequired, double goal) {
+		SavingGoal savingGoal = new SavingGoal();
+		savingGoal.setId(id);
+		savingGoal.setName("Goal " + id);
+		savingGoal.setSavePerMonth(savePerMonth);
+		savingGoal.setMinBalanceRequired(minBalanceRequired);
+		savingGoal.setGoal(goal);
+		return savingGoal;
+	}
+}
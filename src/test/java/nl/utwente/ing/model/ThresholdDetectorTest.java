@@ -0,0 +1,98 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the messages of {@link ThresholdDetector} against {@link MessageOracle} on random streams of
+ * deposits and withdrawals, some of them back-dated. The size of a stream is set with the oracle.transactions
+ * system property and the seed with oracle.seed.
+ */
+public class ThresholdDetectorTest {
+	@Test
+	public void testRandomStreams() {
+		int nrTransactions = Integer.getInteger("oracle.transactions", 2000);
+		long seed = Long.getLong("oracle.seed", 20180408);
+		Random random = new Random(seed);
+		for (int stream = 0; stream < 20; stream++) {
+			List<Message> messages = new ArrayList<>();
+			ThresholdDetector detector = detector(messages);
+			MessageOracle oracle = new MessageOracle();
+
+			int nrCategories = 1 + random.nextInt(4);
+			int ruleId = 0;
+			for (int category = 1; category <= nrCategories; category++) {
+				for (int j = random.nextInt(3); j >= 0; j--) {
+					MessageRule messageRule = new MessageRule(++ruleId, random.nextBoolean() ? "info" : "warning",
+							(100 + random.nextInt(2000)) / 2.0, category);
+					detector.addMessageRule(messageRule);
+					oracle.addMessageRule(messageRule);
+				}
+			}
+
+			long clock = 1523221200;
+			for (int id = 1; id <= nrTransactions; id++) {
+				long date;
+				if (random.nextInt(10) == 0) {
+					// Back in time by up to 40 days
+					date = clock - 60L * random.nextInt(40 * 24 * 60);
+				} else {
+					clock += 60L * random.nextInt(3 * 24 * 60);
+					date = clock;
+				}
+				TransactionType type = random.nextInt(5) < 2 ? TransactionType.deposit : TransactionType.withdrawal;
+				double amount = (100 + random.nextInt(30000)) / 100.0;
+				int category = type == TransactionType.withdrawal && random.nextBoolean()
+						? 1 + random.nextInt(nrCategories) : -1;
+				Transaction transaction = new Transaction(id, null, amount, "NL12ABNA0457688830", type.toString(),
+						category < 0 ? null : new Category(category, "Category " + category));
+				detector.add(transaction, date);
+				// Like a session, only withdrawals that do not go back in time are checked against the rules
+				if (date == clock) {
+					detector.checkSpending(transaction, date);
+				}
+				oracle.add(date, amount, type, category);
+			}
+
+			List<Message> expected = oracle.getMessages();
+			for (int i = 0; i < Math.min(expected.size(), messages.size()); i++) {
+				assertTrue("Seed " + seed + ", stream " + stream + ", message " + i + ": expected "
+						+ expected.get(i).getMessage() + " at " + expected.get(i).getDate() + " but was "
+						+ messages.get(i).getMessage() + " at " + messages.get(i).getDate(),
+						messages.get(i).equalsData(expected.get(i)));
+			}
+			assertEquals("Seed " + seed + ", stream " + stream, expected.size(), messages.size());
+		}
+	}
+
+	/**
+	 * @return a detector that adds the messages of a session to a list
+	 */
+	private static ThresholdDetector detector(List<Message> messages) {
+		return new ThresholdDetector(new ThresholdDetector.Listener() {
+			@Override
+			public void belowZero(long epochSecond) {
+				messages.add(new Message(0, "Balance dropped below zero!", epochSecond, false, "warning"));
+			}
+
+			@Override
+			public void newHigh(long epochSecond, double balance) {
+				messages.add(new Message(0, "Your balance reached a new high of " + balance + "!", epochSecond,
+						false, "info"));
+			}
+
+			@Override
+			public void thresholdReached(MessageRule messageRule, long epochSecond) {
+				messages.add(new Message(0, "Spending exceeded threshold of " + messageRule.getValue()
+						+ " on category with id " + messageRule.getCategory_id() + ".", epochSecond, false,
+						messageRule.getType().toString()));
+			}
+		});
+	}
+}
@@ -0,0 +1,112 @@
+package nl.utwente.ing.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link TimerWheel} on the edge cases of its levels, and on random timers and advances against a list
+ * that is sorted by deadline and then by order of scheduling.
+ */
+public class TimerWheelTest {
+	private final TimerWheel<Integer> wheel = new TimerWheel<>();
+
+	@Test
+	public void testOrder() {
+		wheel.schedule(100, 1);
+		wheel.schedule(5, 2);
+		wheel.schedule(100, 3);
+		wheel.schedule(64, 4);
+		assertEquals(Collections.emptyList(), wheel.advance(4));
+		assertEquals(Arrays.asList(2, 4), wheel.advance(99));
+		assertEquals(Arrays.asList(1, 3), wheel.advance(100));
+		assertEquals(Collections.emptyList(), wheel.advance(1000));
+	}
+
+	@Test
+	public void testOverdue() {
+		wheel.advance(1000);
+		wheel.schedule(900, 1);
+		wheel.schedule(1000, 2);
+		wheel.schedule(1001, 3);
+		// Going back in time only takes the overdue timers up to that time
+		assertEquals(Collections.singletonList(1), wheel.advance(950));
+		assertEquals(Arrays.asList(2, 3), wheel.advance(1001));
+	}
+
+	@Test
+	public void testNegativeTimes() {
+		wheel.advance(-100);
+		wheel.schedule(-1, 1);
+		wheel.schedule(0, 2);
+		wheel.schedule(-50, 3);
+		assertEquals(Collections.singletonList(3), wheel.advance(-2));
+		assertEquals(Arrays.asList(1, 2), wheel.advance(0));
+	}
+
+	@Test
+	public void testLongJump() {
+		// Deadlines just before and after the boundaries of the levels
+		long[] deadlines = {63, 64, 65, 4095, 4096, 262143, 262144, 1L << 30, (1L << 36) + 1, 1L << 42};
+		for (int i = 0; i < deadlines.length; i++) {
+			wheel.schedule(deadlines[i], i);
+		}
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), wheel.advance(262143));
+		assertEquals(Arrays.asList(6, 7, 8, 9), wheel.advance(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(Long.getLong("wheel.seed", 20180408));
+		List<long[]> pending = new ArrayList<>();
+		long time = -random.nextInt(1_000_000_000);
+		long sequence = 0;
+		for (int step = 0; step < 50000; step++) {
+			for (int i = random.nextInt(4); i > 0; i--) {
+				long deadline = time + jump(random) - 1000;
+				wheel.schedule(deadline, step * 4 + i);
+				pending.add(new long[] {deadline, sequence++, step * 4 + i});
+			}
+			// Mostly forward, sometimes back-dated
+			long next = random.nextInt(8) == 0 ? time - random.nextInt(100_000) : time + jump(random);
+			List<long[]> fired = new ArrayList<>();
+			for (Iterator<long[]> iterator = pending.iterator(); iterator.hasNext();) {
+				long[] timer = iterator.next();
+				if (timer[0] <= next) {
+					fired.add(timer);
+					iterator.remove();
+				}
+			}
+			fired.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+			List<Integer> expected = new ArrayList<>();
+			for (long[] timer : fired) {
+				expected.add((int) timer[2]);
+			}
+			assertEquals("advance from " + time + " to " + next, expected, wheel.advance(next));
+			time = Math.max(time, next);
+		}
+	}
+
+	/**
+	 * @return a step forward in time of a few seconds, hours, months or up to 10^9 seconds
+	 */
+	private static long jump(Random random) {
+		switch (random.nextInt(4)) {
+		case 0:
+			return random.nextInt(100);
+		case 1:
+			return random.nextInt(100_000);
+		case 2:
+			return random.nextInt(100_000_000);
+		default:
+			return random.nextInt(1_000_000_000);
+		}
+	}
+}